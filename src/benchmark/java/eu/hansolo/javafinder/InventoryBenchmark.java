@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import eu.hansolo.jdktools.scopes.BuildScope;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static eu.hansolo.jdktools.Constants.COMMA;
+import static eu.hansolo.jdktools.Constants.SQUARE_BRACKET_CLOSE;
+import static eu.hansolo.jdktools.Constants.SQUARE_BRACKET_OPEN;
+
+
+// Compares the compact json output with the binary inventory for a fleet of synthetic distributions.
+// Usage: InventoryBenchmark [--records N] [--iterations N]
+public class InventoryBenchmark {
+    private static final int      DEFAULT_RECORDS    = 10_000;
+    private static final int      DEFAULT_ITERATIONS = 50;
+    private static final String[] VERSIONS           = { "8.0.392", "11.0.21", "17.0.9", "21.0.1" };
+
+
+    // ******************** Methods *******************************************
+    public static void main(final String[] args) throws IOException {
+        int records    = DEFAULT_RECORDS;
+        int iterations = DEFAULT_ITERATIONS;
+        for (int i = 0 ; i + 1 < args.length ; i++) {
+            switch (args[i]) {
+                case "--records"    -> records    = Integer.parseInt(args[++i]);
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+            }
+        }
+
+        final List<DistributionInfo> distros   = createDistributions(records);
+        final BinaryInventory        inventory = BinaryInventory.of(Instant.now().getEpochSecond(), "/", Finder.getSysInfo(), distros);
+        final byte[]                 json      = writeJson(distros);
+        final byte[]                 binary    = writeBinary(inventory);
+
+        // Warm up the jit before measuring
+        for (int i = 0 ; i < iterations ; i++) {
+            writeJson(distros);
+            writeBinary(inventory);
+            BinaryInventory.read(new ByteArrayInputStream(binary));
+        }
+
+        final long[] jsonWrite   = new long[iterations];
+        final long[] binaryWrite = new long[iterations];
+        final long[] binaryRead  = new long[iterations];
+        for (int i = 0 ; i < iterations ; i++) {
+            long start = System.nanoTime();
+            writeJson(distros);
+            jsonWrite[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            writeBinary(inventory);
+            binaryWrite[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            if (BinaryInventory.read(new ByteArrayInputStream(binary)).distributions().size() != records) { throw new IllegalStateException("Binary inventory lost records"); }
+            binaryRead[i] = System.nanoTime() - start;
+        }
+
+        System.out.println(String.format("%d records, median of %d iterations", records, iterations));
+        System.out.println(String.format("%-14s %12s %12s %14s", "Format", "Bytes", "Write ms", "Read ms"));
+        System.out.println(String.format("%-14s %12d %12.2f %14s", "json", json.length, median(jsonWrite), "n/a"));
+        System.out.println(String.format("%-14s %12d %12.2f %14.2f", "binary", binary.length, median(binaryWrite), median(binaryRead)));
+    }
+
+    // Fleet like data: few distinct vendors and versions, many distinct paths and a shared command line
+    private static List<DistributionInfo> createDistributions(final int records) {
+        final Distribution[]         distributions = { Distribution.TEMURIN, Distribution.ZULU, Distribution.CORRETTO, Distribution.LIBERICA };
+        final List<DistributionInfo> distros       = new ArrayList<>(records);
+        for (int i = 0 ; i < records ; i++) {
+            final Distribution distribution = distributions[i % distributions.length];
+            final String       version      = VERSIONS[i % VERSIONS.length];
+            final String       location     = "/opt/hosts/host-" + (i / 4) + "/jdk-" + version + "/";
+            final List<String> usedBy       = new ArrayList<>(i % 3 == 0 ? List.of(location + "bin/java -Xmx2g -jar /srv/app/app.jar --spring.profiles.active=prod") : List.of());
+            final DistributionInfo distro = new DistributionInfo(Instant.now(), distribution, distribution.getUiString(), distribution.getApiString(), version, version.split("\\.")[0],
+                                                                 "linux", "x64", false, location, "", BuildScope.BUILD_OF_OPEN_JDK, !usedBy.isEmpty(), usedBy, DetectionMethod.RELEASE_FILE);
+            distros.add(distro);
+        }
+        return distros;
+    }
+
+    private static byte[] writeJson(final List<DistributionInfo> distros) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final OutputWriter          writer       = OutputWriter.of(outputStream);
+        writer.raw(SQUARE_BRACKET_OPEN);
+        for (int i = 0 ; i < distros.size() ; i++) {
+            if (i > 0) { writer.raw(COMMA); }
+            distros.get(i).write(writer, OutputType.JSON);
+        }
+        writer.raw(SQUARE_BRACKET_CLOSE).flush();
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] writeBinary(final BinaryInventory inventory) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        inventory.write(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static double median(final long[] times) {
+        final long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1_000_000.0;
+    }
+}
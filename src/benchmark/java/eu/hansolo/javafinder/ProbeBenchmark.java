@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import eu.hansolo.jdktools.OperatingSystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+// Measures the cost of a single java -version probe per probe profile.
+// Usage: ProbeBenchmark [--iterations N] JDK_HOME...
+// The cpu time of the probes is taken from the children times in /proc/self/stat and is only available on Linux.
+public class ProbeBenchmark {
+    private static final int    DEFAULT_ITERATIONS = 10;
+    private static final double CLOCK_TICKS        = 100.0;
+    private static final Path   PROC_SELF_STAT     = Paths.get("/proc/self/stat");
+
+
+    // ******************** Methods *******************************************
+    public static void main(final String[] args) throws Exception {
+        int          iterations = DEFAULT_ITERATIONS;
+        List<String> homes      = new ArrayList<>();
+        for (int i = 0 ; i < args.length ; i++) {
+            if (args[i].equals("--iterations") && i + 1 < args.length) {
+                iterations = Integer.parseInt(args[++i]);
+            } else {
+                homes.add(args[i]);
+            }
+        }
+        if (homes.isEmpty()) { homes.add(System.getProperty(Constants.JAVA_HOME_PROPERTY_KEY)); }
+
+        System.out.println(String.format("%-50s %-16s %12s %12s %12s %12s", "JDK", "Profile", "Median ms", "P95 ms", "Max ms", "CPU ms"));
+        for (String home : homes) {
+            final Path homePath = Paths.get(home);
+            final Path java     = homePath.resolve("bin").resolve(OperatingSystem.WINDOWS == Finder.detectOperatingSystem() ? "java.exe" : "java");
+            if (!Files.isExecutable(java)) {
+                System.out.println(home + " does not contain bin/java");
+                continue;
+            }
+            final ReleaseFile release      = ReleaseFile.read(homePath.resolve(ReleaseFile.FILE_NAME));
+            final int         majorVersion = ProbeProfile.majorVersionOf(release.javaVersion());
+            final boolean     openJ9       = release.jvmVariant().equalsIgnoreCase("openj9");
+            run(home, "plain", ProbeProfile.PLAIN.getCommand(java.toString(), majorVersion, openJ9, false), iterations);
+            run(home, "light", ProbeProfile.LIGHT.getCommand(java.toString(), majorVersion, openJ9, false), iterations);
+            run(home, "light+settings", ProbeProfile.LIGHT.getCommand(java.toString(), majorVersion, openJ9, true), iterations);
+        }
+    }
+
+    private static void run(final String home, final String profile, final List<String> command, final int iterations) throws IOException, InterruptedException {
+        probe(command); // Warm up the page cache
+        final long[] wallTimes = new long[iterations];
+        final long   cpuStart  = childrenCpuTicks();
+        for (int i = 0 ; i < iterations ; i++) {
+            final long start = System.nanoTime();
+            probe(command);
+            wallTimes[i] = System.nanoTime() - start;
+        }
+        final long cpuTicks = childrenCpuTicks() - cpuStart;
+        Arrays.sort(wallTimes);
+        // A median alone hides probes that stall now and then
+        final double medianWall = wallTimes[iterations / 2] / 1_000_000.0;
+        final double p95Wall    = wallTimes[(int) Math.ceil(iterations * 0.95) - 1] / 1_000_000.0;
+        final double maxWall    = wallTimes[iterations - 1] / 1_000_000.0;
+        final String cpu        = cpuStart < 0 ? "n/a" : String.format("%.1f", cpuTicks / CLOCK_TICKS * 1000.0 / iterations);
+        System.out.println(String.format("%-50s %-16s %12.1f %12.1f %12.1f %12s", home, profile, medianWall, p95Wall, maxWall, cpu));
+    }
+
+    private static void probe(final List<String> command) throws IOException, InterruptedException {
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (InputStream inputStream = process.getInputStream()) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        process.waitFor();
+    }
+
+    // Sum of cutime and cstime of the already reaped child processes, -1 if not available
+    private static long childrenCpuTicks() {
+        try {
+            final String   stat = Files.readString(PROC_SELF_STAT);
+            final String[] rest = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            return Long.parseLong(rest[13]) + Long.parseLong(rest[14]);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+// Compares the wall time of complete javafinder runs (jar, jar with AppCDS archive and native image) on the same fixture tree.
+// Usage: StartupBenchmark --fixture DIR [--runs N] [--jar JAR] [--cds ARCHIVE] [--native BINARY]
+// The fixture contains JDK homes with release files only (they are classified without a java -version probe) and some
+// folders without any JDK, so the runs are dominated by startup. Without --jar and --native the fixture is only created.
+public class StartupBenchmark {
+    private static final int        DEFAULT_RUNS  = 20;
+    private static final int        NOISE_FOLDERS = 200;
+    private static final String[][] IMPLEMENTORS  = { { "Eclipse Adoptium", "Temurin" }, { "Azul Systems, Inc.", "Zulu" }, { "Amazon.com Inc.", "Corretto" }, { "Microsoft", "Microsoft" } };
+    private static final String[]   VERSIONS      = { "11.0.21", "17.0.9", "21.0.1" };
+
+
+    // ******************** Methods *******************************************
+    public static void main(final String[] args) throws Exception {
+        Path   fixture    = null;
+        int    runs       = DEFAULT_RUNS;
+        String jar        = null;
+        String cdsArchive = null;
+        String binary     = null;
+        for (int i = 0 ; i + 1 < args.length ; i++) {
+            switch (args[i]) {
+                case "--fixture" -> fixture    = Paths.get(args[++i]);
+                case "--runs"    -> runs       = Integer.parseInt(args[++i]);
+                case "--jar"     -> jar        = args[++i];
+                case "--cds"     -> cdsArchive = args[++i];
+                case "--native"  -> binary     = args[++i];
+            }
+        }
+        if (null == fixture) {
+            System.out.println("Usage: StartupBenchmark --fixture DIR [--runs N] [--jar JAR] [--cds ARCHIVE] [--native BINARY]");
+            System.exit(1);
+        }
+        createFixture(fixture);
+
+        final String       java     = Paths.get(System.getProperty(Constants.JAVA_HOME_PROPERTY_KEY), "bin", "java").toString();
+        final List<String> scanArgs = List.of("csv", fixture.toString(), "--no-cache");
+        if (null == jar && null == binary) { return; }
+
+        System.out.println(String.format("%-10s %12s %12s %12s", "Variant", "Median ms", "Min ms", "Max ms"));
+        if (null != jar) {
+            run("jar", concat(List.of(java, "-jar", jar), scanArgs), runs);
+            if (null != cdsArchive && Files.exists(Paths.get(cdsArchive))) {
+                run("jar+cds", concat(List.of(java, "-XX:SharedArchiveFile=" + cdsArchive, "-Xshare:auto", "-jar", jar), scanArgs), runs);
+            }
+        }
+        if (null != binary && Files.isExecutable(Paths.get(binary))) {
+            run("native", concat(List.of(binary), scanArgs), runs);
+        }
+    }
+
+    // Creates the fixture once, an existing fixture is reused so that all variants and training runs see the same tree
+    public static void createFixture(final Path fixture) throws IOException {
+        if (Files.isDirectory(fixture)) { return; }
+        final Path tmp = Files.createDirectories(fixture.resolveSibling(fixture.getFileName() + ".tmp"));
+        for (String[] implementor : IMPLEMENTORS) {
+            for (String version : VERSIONS) {
+                final Path home = tmp.resolve("jdks").resolve(implementor[1].toLowerCase() + "-" + version);
+                final Path java = Files.createDirectories(home.resolve("bin")).resolve("java");
+                Files.writeString(java, "#!/bin/sh\necho 'openjdk version \"" + version + "\"' 1>&2\n", StandardCharsets.UTF_8);
+                java.toFile().setExecutable(true);
+                Files.writeString(home.resolve(ReleaseFile.FILE_NAME), "IMPLEMENTOR=\"" + implementor[0] + "\"\n" +
+                                                                       "IMPLEMENTOR_VERSION=\"" + implementor[1] + "-" + version + "+9\"\n" +
+                                                                       "JAVA_VERSION=\"" + version + "\"\n" +
+                                                                       "JAVA_RUNTIME_VERSION=\"" + version + "+9-LTS\"\n" +
+                                                                       "OS_NAME=\"Linux\"\n" +
+                                                                       "OS_ARCH=\"x86_64\"\n", StandardCharsets.UTF_8);
+            }
+        }
+        for (int i = 0 ; i < NOISE_FOLDERS ; i++) {
+            final Path folder = Files.createDirectories(tmp.resolve("projects").resolve("project-" + (i / 10)).resolve("module-" + i));
+            Files.writeString(folder.resolve("README.md"), "module " + i + "\n", StandardCharsets.UTF_8);
+        }
+        Files.move(tmp, fixture);
+    }
+
+    private static void run(final String variant, final List<String> command, final int runs) throws IOException, InterruptedException {
+        execute(command); // Warm up the page cache
+        final long[] times = new long[runs];
+        for (int i = 0 ; i < runs ; i++) {
+            final long start = System.nanoTime();
+            final int  exit  = execute(command);
+            times[i] = System.nanoTime() - start;
+            if (0 != exit) { throw new IllegalStateException(variant + " exited with " + exit); }
+        }
+        Arrays.sort(times);
+        System.out.println(String.format("%-10s %12.1f %12.1f %12.1f", variant, times[runs / 2] / 1_000_000.0, times[0] / 1_000_000.0, times[runs - 1] / 1_000_000.0));
+    }
+
+    private static int execute(final List<String> command) throws IOException, InterruptedException {
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (InputStream inputStream = process.getInputStream()) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return process.waitFor();
+    }
+
+    private static List<String> concat(final List<String> first, final List<String> second) {
+        final List<String> list = new ArrayList<>(first);
+        list.addAll(second);
+        return list;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import eu.hansolo.jdktools.scopes.BuildScope;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+
+// Compact binary form of a scan result for collecting the results of many hosts.
+// Layout (big endian):
+//   header  : magic "JFBI", u16 format version, u16 flags (0), i64 timestamp, i32 string count, i32 list entry count, i32 record count
+//   sysinfo : i32 string index of search path, operating system, architecture and hostname
+//   strings : per string i32 byte length + utf-8 bytes, every distinct string (vendor, paths, command lines...) is stored once
+//   lists   : i32 string indices, used_by and aliases of the records point into this table
+//   records : RECORD_SIZE bytes per distribution, see writeRecord()
+public record BinaryInventory(long timestamp, String searchPath, String operatingSystem, String architecture, String hostname, List<DistributionInfo> distributions) {
+    public  static final int    FORMAT_VERSION    = 1;
+    public  static final int    RECORD_SIZE       = 11 * Integer.BYTES + Long.BYTES + Integer.BYTES + 4 * Integer.BYTES;
+    private static final byte[] MAGIC             = { 'J', 'F', 'B', 'I' };
+    private static final int    FX_BUNDLED        = 1;
+    private static final int    ACTIVE            = 1 << 1;
+    private static final int    BUFFER_SIZE       = 64 * 1024;
+    private static final int    INITIAL_CAPACITY  = 1024;
+    private static final int    MAX_STRING_LENGTH = 16 * 1024 * 1024;
+
+
+    // ******************** Constructors **************************************
+    public BinaryInventory {
+        distributions = List.copyOf(distributions);
+    }
+
+
+    // ******************** Methods *******************************************
+    public static BinaryInventory of(final long timestamp, final String searchPath, final SysInfo sysInfo, final Iterable<DistributionInfo> distributions) {
+        final List<DistributionInfo> list = new ArrayList<>();
+        distributions.forEach(list::add);
+        return new BinaryInventory(timestamp, searchPath, sysInfo.operatingSystem().getUiString(), sysInfo.architecture().getUiString(), sysInfo.hostname(), list);
+    }
+
+    public void write(final OutputStream outputStream) throws IOException {
+        final StringTable   strings = new StringTable();
+        final List<Integer> lists   = new ArrayList<>();
+        final int[][]       records = new int[distributions.size()][];
+        for (int i = 0 ; i < distributions.size() ; i++) {
+            final DistributionInfo distro = distributions.get(i);
+            records[i] = new int[] {
+                strings.indexOf(distro.distribution().name()), strings.indexOf(distro.name()), strings.indexOf(distro.apiString()), strings.indexOf(distro.version()),
+                strings.indexOf(distro.jdkMajorVersion()), strings.indexOf(distro.operatingSystem()), strings.indexOf(distro.architecture()), strings.indexOf(distro.location()),
+                strings.indexOf(distro.feature()), strings.indexOf(distro.buildScope().name()), strings.indexOf(distro.detectionMethod().name()),
+                (distro.fxBundled() ? FX_BUNDLED : 0) | (distro.active() ? ACTIVE : 0),
+                lists.size(), distro.usedBy().size(), 0, distro.aliases().size()
+            };
+            distro.usedBy().forEach(cmdLine -> lists.add(strings.indexOf(cmdLine)));
+            records[i][14] = lists.size();
+            distro.aliases().forEach(alias -> lists.add(strings.indexOf(alias)));
+        }
+        final int searchPathIndex = strings.indexOf(searchPath);
+        final int osIndex         = strings.indexOf(operatingSystem);
+        final int archIndex       = strings.indexOf(architecture);
+        final int hostnameIndex   = strings.indexOf(hostname);
+
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+        out.write(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeShort(0);
+        out.writeLong(timestamp);
+        out.writeInt(strings.size());
+        out.writeInt(lists.size());
+        out.writeInt(records.length);
+        out.writeInt(searchPathIndex);
+        out.writeInt(osIndex);
+        out.writeInt(archIndex);
+        out.writeInt(hostnameIndex);
+        for (byte[] bytes : strings.bytes()) {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        for (int index : lists) { out.writeInt(index); }
+        final ByteBuffer recordBuffer = ByteBuffer.allocate(records.length * RECORD_SIZE);
+        for (int i = 0 ; i < records.length ; i++) { writeRecord(recordBuffer, records[i], distributions.get(i).timestamp()); }
+        out.write(recordBuffer.array());
+        out.flush();
+    }
+
+    public static BinaryInventory read(final InputStream inputStream) throws IOException {
+        final DataInputStream in    = new DataInputStream(new BufferedInputStream(inputStream, BUFFER_SIZE));
+        final byte[]          magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        for (int i = 0 ; i < MAGIC.length ; i++) {
+            if (magic[i] != MAGIC[i]) { throw new IOException("Not a javafinder binary inventory"); }
+        }
+        final int version = in.readUnsignedShort();
+        if (version > FORMAT_VERSION) { throw new IOException("Unsupported binary inventory version " + version); }
+        in.readUnsignedShort(); // flags
+        final long timestamp       = in.readLong();
+        final int  noOfStrings     = in.readInt();
+        final int  noOfListEntries = in.readInt();
+        final int  noOfRecords     = in.readInt();
+        final int  searchPathIndex = in.readInt();
+        final int  osIndex         = in.readInt();
+        final int  archIndex       = in.readInt();
+        final int  hostnameIndex   = in.readInt();
+        if (noOfStrings < 0 || noOfListEntries < 0 || noOfRecords < 0) { throw new IOException("Corrupt binary inventory header"); }
+
+        // Counts and lengths come from the file, nothing is allocated for them before the data was actually read
+        final List<String> stringList = new ArrayList<>(Math.min(noOfStrings, INITIAL_CAPACITY));
+        for (int i = 0 ; i < noOfStrings ; i++) {
+            final int length = in.readInt();
+            if (length < 0 || length > MAX_STRING_LENGTH) { throw new IOException("Corrupt binary inventory string " + i); }
+            final byte[] bytes = in.readNBytes(length);
+            if (bytes.length != length) { throw new EOFException("Truncated binary inventory string " + i); }
+            stringList.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        final String[] strings = stringList.toArray(new String[0]);
+        int[] lists = new int[Math.min(noOfListEntries, INITIAL_CAPACITY)];
+        for (int i = 0 ; i < noOfListEntries ; i++) {
+            if (i == lists.length) { lists = Arrays.copyOf(lists, (int) Math.min((long) lists.length * 2, noOfListEntries)); }
+            lists[i] = in.readInt();
+        }
+
+        final List<DistributionInfo> distributions = new ArrayList<>(Math.min(noOfRecords, INITIAL_CAPACITY));
+        final int[]                  record        = new int[16];
+        for (int i = 0 ; i < noOfRecords ; i++) {
+            for (int field = 0 ; field < 11 ; field++) { record[field] = in.readInt(); }
+            final Instant recordTimestamp = Instant.ofEpochMilli(in.readLong());
+            for (int field = 11 ; field < 16 ; field++) { record[field] = in.readInt(); }
+            try {
+                final DistributionInfo distro = new DistributionInfo(recordTimestamp, Distribution.valueOf(strings[record[0]]), strings[record[1]], strings[record[2]], strings[record[3]],
+                                                                     strings[record[4]], strings[record[5]], strings[record[6]], (record[11] & FX_BUNDLED) != 0, strings[record[7]],
+                                                                     strings[record[8]], BuildScope.valueOf(strings[record[9]]), (record[11] & ACTIVE) != 0,
+                                                                     resolve(strings, lists, record[12], record[13]), DetectionMethod.valueOf(strings[record[10]]));
+                distro.aliases().addAll(resolve(strings, lists, record[14], record[15]));
+                distributions.add(distro);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IOException("Corrupt binary inventory record " + i, e);
+            }
+        }
+        try {
+            return new BinaryInventory(timestamp, strings[searchPathIndex], strings[osIndex], strings[archIndex], strings[hostnameIndex], distributions);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt binary inventory header", e);
+        }
+    }
+
+    // distribution, name, api string, version, jdk major version, os, architecture, location, feature, build scope, detection method (string indices),
+    // timestamp (epoch millis), flags, used_by offset, used_by count, aliases offset, aliases count
+    private static void writeRecord(final ByteBuffer buffer, final int[] record, final Instant timestamp) {
+        for (int field = 0 ; field < 11 ; field++) { buffer.putInt(record[field]); }
+        buffer.putLong(null == timestamp ? 0 : timestamp.toEpochMilli());
+        for (int field = 11 ; field < 16 ; field++) { buffer.putInt(record[field]); }
+    }
+
+    private static List<String> resolve(final String[] strings, final int[] lists, final int offset, final int count) {
+        Objects.checkFromIndexSize(offset, count, lists.length);
+        final List<String> list = new ArrayList<>(count);
+        for (int i = offset ; i < offset + count ; i++) { list.add(strings[lists[i]]); }
+        return list;
+    }
+
+
+    private static class StringTable {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<byte[]>         bytes   = new ArrayList<>();
+
+        int indexOf(final String text) {
+            return indices.computeIfAbsent(null == text ? "" : text, key -> {
+                bytes.add(key.getBytes(StandardCharsets.UTF_8));
+                return bytes.size() - 1;
+            });
+        }
+
+        int size() { return bytes.size(); }
+
+        List<byte[]> bytes() { return bytes; }
+    }
+}
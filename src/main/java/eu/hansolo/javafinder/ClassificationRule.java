@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import eu.hansolo.jdktools.scopes.BuildScope;
+import eu.hansolo.jdktools.versioning.VersionNumber;
+
+import java.util.List;
+
+
+// One row of the classification table, it matches if all of its conditions match.
+// The api string may contain {major} which will be replaced by the major version of the jdk.
+public record ClassificationRule(List<Condition> conditions, Distribution distribution, String name, String apiString, BuildScope buildScope, VersionSource versionSource) {
+    public static final String MAJOR_VERSION = "{major}";
+
+    public enum Source { LINE_1, LINE_2, LINE_3, JVMCI, IMPLEMENTOR, IMPLEMENTOR_VERSION, BUILD_TYPE, JVM_VARIANT, VENDOR, JAVA_VENDOR, README }
+
+    public enum Operator { EQUALS, EQUALS_IGNORE_CASE, STARTS_WITH, CONTAINS, AT_LEAST }
+
+    // Where the version of the distribution comes from if it differs from the java version
+    public enum VersionSource { JAVA_VERSION, ZULU_BUILD, GRAALVM_BUILD }
+
+    public record Condition(Source source, Operator operator, String text) {
+        public boolean matches(final String value) {
+            if (null == value || value.isEmpty()) { return false; }
+            return switch (operator) {
+                case EQUALS             -> value.equals(text);
+                case EQUALS_IGNORE_CASE -> value.equalsIgnoreCase(text);
+                case STARTS_WITH        -> value.startsWith(text);
+                case CONTAINS           -> value.contains(text);
+                case AT_LEAST           -> VersionNumber.fromText(value).compareTo(VersionNumber.fromText(text)) >= 0;
+            };
+        }
+    }
+
+
+    // ******************** Constructors **************************************
+    public ClassificationRule {
+        conditions = List.copyOf(conditions);
+    }
+
+
+    // ******************** Methods *******************************************
+    public static Condition when(final Source source, final Operator operator, final String text) { return new Condition(source, operator, text); }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import eu.hansolo.javafinder.ClassificationRule.Condition;
+import eu.hansolo.javafinder.ClassificationRule.Source;
+import eu.hansolo.javafinder.ClassificationRule.VersionSource;
+import eu.hansolo.jdktools.scopes.BuildScope;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static eu.hansolo.javafinder.ClassificationRule.Operator.AT_LEAST;
+import static eu.hansolo.javafinder.ClassificationRule.Operator.CONTAINS;
+import static eu.hansolo.javafinder.ClassificationRule.Operator.EQUALS;
+import static eu.hansolo.javafinder.ClassificationRule.Operator.EQUALS_IGNORE_CASE;
+import static eu.hansolo.javafinder.ClassificationRule.Operator.STARTS_WITH;
+import static eu.hansolo.javafinder.ClassificationRule.when;
+
+
+// Classifies a distribution by the output of java -version and its release file using one table of rules.
+// The rules are checked in order and the first one that matches wins, so more specific rules have to come first.
+// A new vendor only needs a new row in RULES.
+public class Classifier {
+    public static final List<ClassificationRule> RULES = List.of(
+        // Commercial builds of Oracle
+        rule(Distribution.ORACLE, "Oracle", "oracle", when(Source.BUILD_TYPE, EQUALS, "commercial")),
+
+        // java -version output
+        rule(Distribution.GRAALVM, "GraalVM", "graalvm", BuildScope.BUILD_OF_GRAALVM, VersionSource.JAVA_VERSION, when(Source.LINE_1, STARTS_WITH, "java"), when(Source.LINE_2, CONTAINS, "GraalVM")),
+        rule(Distribution.ZULU, "Zulu", "zulu", BuildScope.BUILD_OF_OPEN_JDK, VersionSource.ZULU_BUILD, when(Source.LINE_2, CONTAINS, "Zulu")),
+        rule(Distribution.ZULU_PRIME, "ZuluPrime", "zulu_prime", BuildScope.BUILD_OF_OPEN_JDK, VersionSource.ZULU_BUILD, when(Source.LINE_2, CONTAINS, "Zing")),
+        rule(Distribution.ZULU_PRIME, "ZuluPrime", "zulu_prime", BuildScope.BUILD_OF_OPEN_JDK, VersionSource.ZULU_BUILD, when(Source.LINE_2, CONTAINS, "Prime")),
+        rule(Distribution.SEMERU_CERTIFIED, "Semeru certified", "semeru_certified", when(Source.LINE_2, CONTAINS, "Semeru"), when(Source.LINE_2, CONTAINS, "Certified")),
+        rule(Distribution.SEMERU, "Semeru", "semeru", when(Source.LINE_2, CONTAINS, "Semeru")),
+        rule(Distribution.KONA, "Kona", "kona", when(Source.LINE_2, CONTAINS, "Tencent")),
+        rule(Distribution.BISHENG, "Bisheng", "bisheng", when(Source.LINE_2, CONTAINS, "Bisheng")),
+        rule(Distribution.ORACLE, "Oracle", "oracle", when(Source.LINE_2, STARTS_WITH, "Java(TM) SE")),
+        rule(Distribution.GRAALVM_COMMUNITY, "GraalVM Community", "graalvm_community", BuildScope.BUILD_OF_GRAALVM, VersionSource.JAVA_VERSION, when(Source.JVMCI, AT_LEAST, "23.0-b12")),
+        rule(Distribution.ORACLE, "Oracle", "oracle", when(Source.LINE_1, STARTS_WITH, "java")),
+
+        // Release file
+        rule(Distribution.TRAVA, "Trava OpenJDK", "trava", when(Source.IMPLEMENTOR, EQUALS, "AdoptOpenJDK"), when(Source.JVM_VARIANT, EQUALS, "dcevm")),
+        rule(Distribution.AOJ_OPENJ9, "Adopt OpenJDK J9", "aoj_openj9", when(Source.IMPLEMENTOR, EQUALS, "AdoptOpenJDK"), when(Source.JVM_VARIANT, EQUALS, "openj9")),
+        rule(Distribution.AOJ, "Adopt OpenJDK", "aoj", when(Source.IMPLEMENTOR, EQUALS, "AdoptOpenJDK")),
+        rule(Distribution.DRAGONWELL, "Dragonwell", "dragonwell", when(Source.IMPLEMENTOR, EQUALS, "Alibaba")),
+        rule(Distribution.CORRETTO, "Corretto", "corretto", when(Source.IMPLEMENTOR, EQUALS, "Amazon.com Inc.")),
+        rule(Distribution.ZULU, "Zulu", "zulu", when(Source.IMPLEMENTOR, EQUALS, "Azul Systems, Inc."), when(Source.IMPLEMENTOR_VERSION, STARTS_WITH, "Zulu")),
+        rule(Distribution.ZULU_PRIME, "ZuluPrime", "zulu_prime", when(Source.IMPLEMENTOR, EQUALS, "Azul Systems, Inc."), when(Source.IMPLEMENTOR_VERSION, STARTS_WITH, "Zing")),
+        rule(Distribution.ZULU_PRIME, "ZuluPrime", "zulu_prime", when(Source.IMPLEMENTOR, EQUALS, "Azul Systems, Inc."), when(Source.IMPLEMENTOR_VERSION, STARTS_WITH, "Prime")),
+        rule(Distribution.MANDREL, "Mandrel", "mandrel", BuildScope.BUILD_OF_GRAALVM, VersionSource.JAVA_VERSION, when(Source.IMPLEMENTOR, EQUALS, "mandrel")),
+        rule(Distribution.MICROSOFT, "Microsoft", "microsoft", when(Source.IMPLEMENTOR, EQUALS, "Microsoft")),
+        rule(Distribution.OJDK_BUILD, "OJDK Build", "ojdk_build", when(Source.IMPLEMENTOR, EQUALS, "ojdkbuild")),
+        rule(Distribution.ORACLE_OPEN_JDK, "Oracle OpenJDK", "oracle_openjdk", when(Source.IMPLEMENTOR, EQUALS, "Oracle Corporation")),
+        rule(Distribution.RED_HAT, "Red Hat", "redhat", when(Source.IMPLEMENTOR, EQUALS, "Red Hat, Inc.")),
+        rule(Distribution.SAP_MACHINE, "SAP Machine", "sap_machine", when(Source.IMPLEMENTOR, EQUALS, "SAP SE")),
+        rule(Distribution.OPEN_LOGIC, "OpenLogic", "openlogic", when(Source.IMPLEMENTOR, EQUALS, "OpenLogic")),
+        rule(Distribution.JETBRAINS, "JetBrains", "jetbrains", when(Source.IMPLEMENTOR, EQUALS, "JetBrains s.r.o.")),
+        rule(Distribution.TEMURIN, "Temurin", "temurin", when(Source.IMPLEMENTOR, EQUALS, "Eclipse Foundation")),
+        rule(Distribution.KONA, "Kona", "kona", when(Source.IMPLEMENTOR, EQUALS, "Tencent")),
+        rule(Distribution.BISHENG, "Bisheng", "bisheng", when(Source.IMPLEMENTOR, EQUALS, "Bisheng")),
+        rule(Distribution.DEBIAN, "Debian", "debian", when(Source.IMPLEMENTOR, EQUALS, "Debian")),
+        rule(Distribution.UBUNTU, "Ubuntu", "ubuntu", when(Source.IMPLEMENTOR, EQUALS, "Ubuntu")),
+
+        // Readme file
+        rule(Distribution.LIBERICA_NATIVE, "Liberica Native", "liberica_native", BuildScope.BUILD_OF_GRAALVM, VersionSource.GRAALVM_BUILD, when(Source.README, CONTAINS, "liberica native image kit")),
+        rule(Distribution.LIBERICA, "Liberica", "liberica", when(Source.README, CONTAINS, "liberica")),
+
+        // java.vendor property (only available if the probe printed its settings)
+        rule(Distribution.LIBERICA, "Liberica", "liberica", when(Source.JAVA_VENDOR, EQUALS, "BellSoft")),
+        rule(Distribution.CORRETTO, "Corretto", "corretto", when(Source.JAVA_VENDOR, EQUALS, "Amazon.com Inc.")),
+        rule(Distribution.MICROSOFT, "Microsoft", "microsoft", when(Source.JAVA_VENDOR, EQUALS, "Microsoft")),
+        rule(Distribution.RED_HAT, "Red Hat", "redhat", when(Source.JAVA_VENDOR, EQUALS, "Red Hat, Inc.")),
+        rule(Distribution.SAP_MACHINE, "SAP Machine", "sap_machine", when(Source.JAVA_VENDOR, EQUALS, "SAP SE")),
+        rule(Distribution.DRAGONWELL, "Dragonwell", "dragonwell", when(Source.JAVA_VENDOR, EQUALS, "Alibaba")),
+        rule(Distribution.TEMURIN, "Temurin", "temurin", when(Source.JAVA_VENDOR, EQUALS, "Eclipse Adoptium")),
+
+        // Third line of java -version output (lower case)
+        rule(Distribution.GLUON_GRAALVM, "Gluon GraalVM CE", "gluon_graalvm", BuildScope.BUILD_OF_GRAALVM, VersionSource.GRAALVM_BUILD, when(Source.LINE_3, CONTAINS, "graalvm"), when(Source.VENDOR, EQUALS_IGNORE_CASE, "Gluon")),
+        rule(Distribution.GRAALVM_EE, "GraalVM", "graalvm" + ClassificationRule.MAJOR_VERSION, BuildScope.BUILD_OF_GRAALVM, VersionSource.GRAALVM_BUILD, when(Source.LINE_3, CONTAINS, "graalvm"), when(Source.IMPLEMENTOR, EQUALS, "GraalVM Enterprise")),
+        rule(Distribution.GRAALVM_CE, "GraalVM CE", "graalvm_ce" + ClassificationRule.MAJOR_VERSION, BuildScope.BUILD_OF_GRAALVM, VersionSource.GRAALVM_BUILD, when(Source.LINE_3, CONTAINS, "graalvm")),
+        rule(Distribution.MICROSOFT, "Microsoft", "microsoft", when(Source.LINE_3, CONTAINS, "microsoft")),
+        rule(Distribution.CORRETTO, "Corretto", "corretto", when(Source.LINE_3, CONTAINS, "corretto")),
+        rule(Distribution.TEMURIN, "Temurin", "temurin", when(Source.LINE_3, CONTAINS, "temurin"))
+    );
+
+
+    // ******************** Constructors **************************************
+    private Classifier() { }
+
+
+    // ******************** Methods *******************************************
+    // Each source is only computed once and only if a rule needs it (e.g. the readme is only read if no rule before matched)
+    public static Classification classify(final String[] lines, final ReleaseFile release, final Map<String, String> properties, final Supplier<List<String>> readme) {
+        final Map<Source, String> values  = new EnumMap<>(Source.class);
+        final String              feature = getFeature(lines.length > 2 ? lines[2].toLowerCase() : "");
+        for (ClassificationRule rule : RULES) {
+            boolean matches = true;
+            for (Condition condition : rule.conditions()) {
+                final String value = values.computeIfAbsent(condition.source(), source -> valueOf(source, lines, release, properties, readme));
+                if (!condition.matches(value)) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) { return new Classification(rule.distribution(), rule.name(), rule.apiString(), rule.buildScope(), rule.versionSource(), feature); }
+        }
+        return new Classification(Distribution.NOT_FOUND, Constants.UNKNOWN_BUILD_OF_OPENJDK, "", BuildScope.BUILD_OF_OPEN_JDK, VersionSource.JAVA_VERSION, feature);
+    }
+
+    private static String valueOf(final Source source, final String[] lines, final ReleaseFile release, final Map<String, String> properties, final Supplier<List<String>> readme) {
+        return switch (source) {
+            case LINE_1              -> lines[0];
+            case LINE_2              -> lines.length > 1 ? lines[1] : "";
+            case LINE_3              -> lines.length > 2 ? lines[2].toLowerCase() : "";
+            case JVMCI               -> {
+                final String line2 = lines.length > 1 ? lines[1] : "";
+                final int    index = line2.indexOf("jvmci");
+                yield index < 0 ? "" : line2.substring(index, line2.length() - 1).replace("jvmci-", "");
+            }
+            case IMPLEMENTOR         -> release.implementor();
+            case IMPLEMENTOR_VERSION -> release.implementorVersion();
+            case BUILD_TYPE          -> release.buildType();
+            case JVM_VARIANT         -> release.jvmVariant().toLowerCase();
+            case VENDOR              -> release.vendor();
+            case JAVA_VENDOR         -> properties.getOrDefault("java.vendor", "");
+            case README              -> String.join("\n", readme.get()).toLowerCase();
+        };
+    }
+
+    private static String getFeature(final String line3) {
+        for (String feature : Constants.FEATURES) {
+            if (line3.contains(feature)) { return feature; }
+        }
+        return "";
+    }
+
+    private static ClassificationRule rule(final Distribution distribution, final String name, final String apiString, final Condition... conditions) {
+        return rule(distribution, name, apiString, BuildScope.BUILD_OF_OPEN_JDK, VersionSource.JAVA_VERSION, conditions);
+    }
+    private static ClassificationRule rule(final Distribution distribution, final String name, final String apiString, final BuildScope buildScope, final VersionSource versionSource, final Condition... conditions) {
+        return new ClassificationRule(List.of(conditions), distribution, name, apiString, buildScope, versionSource);
+    }
+
+
+    public record Classification(Distribution distribution, String name, String apiString, BuildScope buildScope, VersionSource versionSource, String feature) {
+        public String apiString(final int majorVersion) { return apiString.replace(ClassificationRule.MAJOR_VERSION, Integer.toString(majorVersion)); }
+
+        public boolean isUnknown() { return Distribution.NOT_FOUND == distribution; }
+    }
+}
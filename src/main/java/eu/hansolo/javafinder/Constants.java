@@ -28,9 +28,12 @@ public class Constants {
     public static final String       FIELD_NAME               = "name";
     public static final String       FIELD_VERSION            = "version";
     public static final String       FIELD_PATH               = "path";
+    public static final String       FIELD_ALIASES            = "aliases";
     public static final String       FIELD_BUILD_SCOPE        = "build_scope";
+    public static final String       FIELD_DETECTION          = "detection";
     public static final String       FIELD_IN_USE             = "in_use";
     public static final String       FIELD_USED_BY            = "used_by";
+    public static final String       FIELD_FX_BUNDLED         = "fx_bundled";
     public static final String       FIELD_DISTRIBUTIONS      = "distributions";
     public static final String       FIELD_SYSINFO            = "sysinfo";
     public static final String       FIELD_ARCHITECTURE       = "architecture";
@@ -40,6 +43,10 @@ public class Constants {
     public static final String       FIELD_SEARCH_PATH        = "search_path";
     public static final String       FIELD_CREATED_BY         = "created_by";
     public static final String       FIELD_BUILD_JDK          = "build_jdk";
+    public static final String       FIELD_TYPE               = "type";
+    public static final String       FIELD_SUMMARY            = "summary";
+    public static final String       FIELD_TIMED_OUT_PROBES   = "timed_out_probes";
+    public static final String       FIELD_DURATION_MS        = "duration_ms";
     public static final Pattern      JAVA_PATH_PATTERN        = Pattern.compile("^(.*/java)\\s");
     public static final Pattern      JAVA_PATH_PATTERN_WIN    = Pattern.compile("^(.*\\\\java\\.exe)\\s");
     public static final String       RESET_COLOR              = "\u001B[0m";
@@ -71,4 +78,7 @@ public class Constants {
         OS_NAME_PROPERTY   = System.getProperty(OS_NAME_PROPERTY_KEY);
         OS_ARCH_PROPERTY   = System.getProperty(OS_ARCH_PROPERTY_KEY);
     }
+
+
+    private Constants() { }
 }
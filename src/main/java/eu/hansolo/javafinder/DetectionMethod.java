@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+public enum DetectionMethod {
+    RELEASE_FILE("Release file", "release_file"),
+    JIMAGE("lib/modules", "jimage"),
+    JAVA_VERSION("java -version", "java_version"),
+    NOT_FOUND("", "");
+
+    private final String uiString;
+    private final String apiString;
+
+
+    // ******************** Constructors **************************************
+    DetectionMethod(final String uiString, final String apiString) {
+        this.uiString  = uiString;
+        this.apiString = apiString;
+    }
+
+
+    // ******************** Methods *******************************************
+    public final String getUiString() { return uiString; }
+
+    public final String getApiString() { return apiString; }
+
+    public static final DetectionMethod fromText(final String text) {
+        if (null == text || text.isEmpty()) { return NOT_FOUND; }
+        switch(text) {
+            case "release_file", "RELEASE_FILE", "Release file"  -> { return RELEASE_FILE; }
+            case "jimage", "JIMAGE", "lib/modules"               -> { return JIMAGE; }
+            case "java_version", "JAVA_VERSION", "java -version" -> { return JAVA_VERSION; }
+            default                                              -> { return NOT_FOUND; }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+// Persistent listings of directories whose subtree did not contain a java executable during the last scans.
+// Each directory is stored as a 64 bit hash of its path, modification and change time together with the names
+// of its subdirectories. Adding, removing or renaming an entry changes the modification time of the directory,
+// so an unchanged directory doesn't need to be listed again. Its subdirectories are still checked one by one,
+// because changes deep down in a subtree do not touch the modification time of its parents.
+public class DirectoryCache {
+    public  static final Duration              DEFAULT_MAX_AGE  = Duration.ofHours(24);
+    public  static final String                UNIX_ATTRIBUTES  = "unix:lastModifiedTime,lastAccessTime,creationTime,size,isRegularFile,isDirectory,isSymbolicLink,isOther,fileKey,ctime";
+    public  static final boolean               UNIX_VIEW        = FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+    private static final String                CACHE_FILE_NAME  = "dirs.cache";
+    private static final int                   MAGIC            = 0x4A464443; // JFDC
+    private static final int                   VERSION          = 3;
+    private static final int                   MAX_ENTRIES      = 10_000_000;
+    private static final long                  FNV_OFFSET       = 0xcbf29ce484222325L;
+    private static final long                  FNV_PRIME        = 0x100000001b3L;
+    private static final String[]              NO_CHILDREN      = new String[0];
+    private        final Path                  cacheFile;
+    private        final Duration              maxAge;
+    private        final Map<Long, String[]>   emptyDirs        = new ConcurrentHashMap<>();
+    private volatile     Map<Long, String[]>   knownEmptyDirs   = Map.of();
+    private              long                  created          = System.currentTimeMillis();
+    private volatile     boolean               loaded           = false;
+
+
+    // ******************** Constructors **************************************
+    public DirectoryCache() {
+        this(ProbeCache.getDefaultCacheFolder(), DEFAULT_MAX_AGE);
+    }
+    public DirectoryCache(final Path cacheFolder, final Duration maxAge) {
+        this.cacheFile = cacheFolder.resolve(CACHE_FILE_NAME);
+        this.maxAge    = null == maxAge ? DEFAULT_MAX_AGE : maxAge;
+    }
+
+
+    // ******************** Methods *******************************************
+    public Path getCacheFile() { return cacheFile; }
+
+    // Names of the subdirectories if the directory did not contain a java executable last time and did not change since then, otherwise null
+    public String[] getKnownEmptyChildren(final Path dir, final BasicFileAttributes attrs) {
+        if (!loaded) { load(); }
+        return knownEmptyDirs.get(keyOf(dir, attrs));
+    }
+
+    public void markEmpty(final Path dir, final BasicFileAttributes attrs, final String[] children) {
+        emptyDirs.put(keyOf(dir, attrs), null == children || 0 == children.length ? NO_CHILDREN : children);
+    }
+
+    public int size() { return emptyDirs.size(); }
+
+    public void clear() {
+        emptyDirs.clear();
+        knownEmptyDirs = Map.of();
+        created        = System.currentTimeMillis();
+        loaded         = true;
+    }
+
+    public synchronized void load() {
+        if (loaded) { return; }
+        if (Files.isReadable(cacheFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+                if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+                    final long timestamp = in.readLong();
+                    final int  count     = in.readInt();
+                    if (System.currentTimeMillis() - timestamp < maxAge.toMillis() && count >= 0 && count <= MAX_ENTRIES) {
+                        final Map<Long, String[]> dirs = new HashMap<>();
+                        for (int i = 0 ; i < count ; i++) {
+                            final long key          = in.readLong();
+                            final int  noOfChildren = in.readInt();
+                            if (noOfChildren < 0 || noOfChildren > MAX_ENTRIES) { throw new IOException("Corrupt directory cache"); }
+                            final String[] children = 0 == noOfChildren ? NO_CHILDREN : new String[noOfChildren];
+                            for (int j = 0 ; j < noOfChildren ; j++) { children[j] = in.readUTF(); }
+                            dirs.put(key, children);
+                        }
+                        knownEmptyDirs = dirs;
+                        created        = timestamp;
+                    }
+                }
+            } catch (IOException e) {
+                knownEmptyDirs = Map.of();
+            }
+        }
+        loaded = true;
+    }
+
+    // Keeps the entries of former scans (they might have used other search paths) and adds the ones found in this scan
+    public synchronized void save() {
+        if (!loaded) { load(); }
+        // A copy of the finder might still be adding entries, they end up in the next save
+        final Map<Long, String[]> dirs = new HashMap<>(knownEmptyDirs);
+        dirs.putAll(emptyDirs);
+        Path tmpFile = null;
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            tmpFile = Files.createTempFile(cacheFile.getParent(), CACHE_FILE_NAME, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(created);
+                out.writeInt(dirs.size());
+                for (Map.Entry<Long, String[]> entry : dirs.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    for (String child : entry.getValue()) { out.writeUTF(child); }
+                }
+            }
+            Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            knownEmptyDirs = dirs;
+        } catch (IOException | UnsupportedOperationException e) {
+            try {
+                if (null != tmpFile) { Files.deleteIfExists(tmpFile); }
+            } catch (IOException ex) { /* Nothing left to do */ }
+        }
+    }
+
+    // Reads the attributes with a single stat, on unix they also contain the change time (ctime) that the cache keys need
+    public static BasicFileAttributes readAttributes(final Path path) throws IOException {
+        if (UNIX_VIEW) {
+            try {
+                return new UnixAttributes(Files.readAttributes(path, UNIX_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS));
+            } catch (UnsupportedOperationException | IllegalArgumentException e) { /* Other file system, e.g. a zip file system */ }
+        }
+        return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    }
+
+    // FNV-1a hash of the path mixed with modification and change time of the directory
+    private static long keyOf(final Path dir, final BasicFileAttributes attrs) {
+        final String path = dir.toString();
+        long hash = FNV_OFFSET;
+        for (int i = 0 ; i < path.length() ; i++) {
+            hash ^= path.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= attrs.lastModifiedTime().toMillis();
+        hash *= FNV_PRIME;
+        // The change time also changes on renames and permission changes, file systems without it only offer the creation time
+        hash ^= attrs instanceof UnixAttributes unixAttrs ? unixAttrs.changeTime().toMillis() : attrs.creationTime().toMillis();
+        hash *= FNV_PRIME;
+        return hash;
+    }
+
+
+    private record UnixAttributes(Map<String, Object> attributes) implements BasicFileAttributes {
+        @Override public FileTime lastModifiedTime() { return (FileTime) attributes.get("lastModifiedTime"); }
+
+        @Override public FileTime lastAccessTime() { return (FileTime) attributes.get("lastAccessTime"); }
+
+        @Override public FileTime creationTime() { return (FileTime) attributes.get("creationTime"); }
+
+        @Override public boolean isRegularFile() { return (Boolean) attributes.get("isRegularFile"); }
+
+        @Override public boolean isDirectory() { return (Boolean) attributes.get("isDirectory"); }
+
+        @Override public boolean isSymbolicLink() { return (Boolean) attributes.get("isSymbolicLink"); }
+
+        @Override public boolean isOther() { return (Boolean) attributes.get("isOther"); }
+
+        @Override public long size() { return (Long) attributes.get("size"); }
+
+        @Override public Object fileKey() { return attributes.get("fileKey"); }
+
+        public FileTime changeTime() { return (FileTime) attributes.get("ctime"); }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.scopes.BuildScope;
+
+
+// Restricts a scan to distributions with the given major version, vendor (or distribution), architecture and build scope.
+// Empty criteria (0, "" or BuildScope.NOT_FOUND) match everything. Major version and architecture are checked against the
+// release file and the executable header before a JDK is classified, so JDKs that can't match are never probed.
+public record DistributionFilter(int majorVersion, String vendor, String architecture, BuildScope buildScope) {
+    public static final DistributionFilter NONE = new DistributionFilter(0, "", "", BuildScope.NOT_FOUND);
+
+
+    // ******************** Constructors **************************************
+    public DistributionFilter {
+        if (majorVersion < 0) { throw new IllegalArgumentException("majorVersion cannot be negative"); }
+        vendor       = null == vendor       ? "" : vendor.trim().toLowerCase();
+        architecture = null == architecture ? "" : normalizeArchitecture(architecture);
+        buildScope   = null == buildScope   ? BuildScope.NOT_FOUND : buildScope;
+    }
+
+
+    // ******************** Methods *******************************************
+    public boolean isEmpty() { return 0 == majorVersion && vendor.isEmpty() && architecture.isEmpty() && BuildScope.NOT_FOUND == buildScope; }
+
+    // False if the facts that are known before classification already rule the JDK out
+    public boolean mayMatch(final JdkHomeProbe probe, final ExecutableHeader header) {
+        final ReleaseFile release = probe.release();
+        if (majorVersion > 0 && !release.javaVersion().isEmpty() && ProbeProfile.majorVersionOf(release.javaVersion()) != majorVersion) { return false; }
+        if (!architecture.isEmpty()) {
+            if (!release.osArch().isEmpty()) { return architecture.equals(normalizeArchitecture(release.osArch())); }
+            if (Architecture.NOT_FOUND != header.architecture()) { return architecture.equals(normalizeArchitecture(header.architecture().name())); }
+        }
+        return true;
+    }
+
+    public boolean matches(final DistributionInfo distro) {
+        if (majorVersion > 0 && !Integer.toString(majorVersion).equals(distro.jdkMajorVersion())) { return false; }
+        if (!vendor.isEmpty()) {
+            final Distribution distribution = distro.distribution();
+            if (!vendor.equals(distribution.getApiString()) && !vendor.equalsIgnoreCase(distribution.getUiString()) &&
+                !vendor.equals(distribution.getVendor().getApiString()) && !vendor.equalsIgnoreCase(distribution.getVendor().getUiString())) { return false; }
+        }
+        if (!architecture.isEmpty() && !architecture.equals(normalizeArchitecture(distro.architecture()))) { return false; }
+        return BuildScope.NOT_FOUND == buildScope || buildScope == distro.buildScope();
+    }
+
+    // Spec as used by javafinder resolve: [vendor or distribution][@major][/architecture], e.g. temurin@21, 17, zulu@21/aarch64 or graalvm@21
+    public static DistributionFilter fromSpec(final String spec) throws IllegalArgumentException {
+        if (null == spec || spec.isBlank()) { throw new IllegalArgumentException("spec cannot be empty"); }
+        String       rest         = spec.trim();
+        String       architecture = "";
+        int          majorVersion = 0;
+        final int    archIndex    = rest.indexOf('/');
+        if (archIndex >= 0) {
+            architecture = rest.substring(archIndex + 1);
+            rest         = rest.substring(0, archIndex);
+        }
+        final int versionIndex = rest.indexOf('@');
+        String    majorText    = "";
+        if (versionIndex >= 0) {
+            majorText = rest.substring(versionIndex + 1);
+            rest      = rest.substring(0, versionIndex);
+        } else if (!rest.isEmpty() && rest.chars().allMatch(Character::isDigit)) {
+            majorText = rest;
+            rest      = "";
+        }
+        if (!majorText.isEmpty()) {
+            try {
+                majorVersion = Integer.parseInt(majorText);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid major version " + majorText + " in " + spec);
+            }
+            if (majorVersion < 1) { throw new IllegalArgumentException("Invalid major version " + majorText + " in " + spec); }
+        }
+        // graalvm and openjdk select the build scope instead of a vendor
+        final BuildScope buildScope = rest.equalsIgnoreCase("graalvm") || rest.equalsIgnoreCase("openjdk") ? buildScopeFromText(rest) : BuildScope.NOT_FOUND;
+        return new DistributionFilter(majorVersion, BuildScope.NOT_FOUND == buildScope ? rest : "", architecture, buildScope);
+    }
+
+    public DistributionFilter withArchitecture(final String architecture) { return new DistributionFilter(majorVersion, vendor, architecture, buildScope); }
+
+    public static BuildScope buildScopeFromText(final String text) {
+        if (null == text || text.isEmpty()) { return BuildScope.NOT_FOUND; }
+        final String scope = text.toLowerCase();
+        if (scope.contains("graal"))                                 { return BuildScope.BUILD_OF_GRAALVM; }
+        if (scope.contains("openjdk") || scope.contains("open_jdk")) { return BuildScope.BUILD_OF_OPEN_JDK; }
+        return BuildScope.fromText(text);
+    }
+
+    // The release file, the executable header and users name the same architecture differently (e.g. x64, amd64 and x86_64)
+    private static String normalizeArchitecture(final String architecture) {
+        final String arch = architecture.trim().toLowerCase();
+        return switch (arch) {
+            case "x64", "amd64", "x86_64", "x86-64"           -> "x64";
+            case "aarch64", "arm64"                           -> "aarch64";
+            case "x86", "x32", "i386", "i486", "i586", "i686" -> "x86";
+            case "arm", "aarch32", "arm32"                    -> "arm";
+            default                                           -> arch;
+        };
+    }
+}
@@ -18,25 +18,18 @@ package eu.hansolo.javafinder;
 
 import eu.hansolo.jdktools.scopes.BuildScope;
 
+import java.io.StringWriter;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
-import static eu.hansolo.javafinder.Constants.FIELD_BUILD_SCOPE;
-import static eu.hansolo.javafinder.Constants.FIELD_IN_USE;
-import static eu.hansolo.javafinder.Constants.FIELD_NAME;
-import static eu.hansolo.javafinder.Constants.FIELD_PATH;
-import static eu.hansolo.javafinder.Constants.FIELD_TIMESTAMP;
-import static eu.hansolo.javafinder.Constants.FIELD_USED_BY;
-import static eu.hansolo.javafinder.Constants.FIELD_VENDOR;
-import static eu.hansolo.javafinder.Constants.FIELD_VERSION;
 import static eu.hansolo.javafinder.OutputType.JSON;
-import static eu.hansolo.jdktools.Constants.COLON;
 import static eu.hansolo.jdktools.Constants.COMMA;
 import static eu.hansolo.jdktools.Constants.COMMA_NEW_LINE;
 import static eu.hansolo.jdktools.Constants.CURLY_BRACKET_CLOSE;
 import static eu.hansolo.jdktools.Constants.CURLY_BRACKET_OPEN;
-import static eu.hansolo.jdktools.Constants.INDENT;
 import static eu.hansolo.jdktools.Constants.NEW_LINE;
 import static eu.hansolo.jdktools.Constants.QUOTES;
 import static eu.hansolo.jdktools.Constants.SQUARE_BRACKET_CLOSE;
@@ -44,24 +37,29 @@ import static eu.hansolo.jdktools.Constants.SQUARE_BRACKET_OPEN;
 
 
 public class DistributionInfo {
-    private Instant      timestamp;
-    private Distribution distribution;
-    private String       name;
-    private String       apiString;
-    private String       version;
-    private String       jdkMajorVersion;
-    private String       operatingSystem;
-    private String       architecture;
-    private boolean      fxBundled;
-    private String       location;
-    private String       feature;
-    private BuildScope   buildScope;
-    private boolean      active;
-    private List<String> usedBy;
+    private Instant         timestamp;
+    private Distribution    distribution;
+    private String          name;
+    private String          apiString;
+    private String          version;
+    private String          jdkMajorVersion;
+    private String          operatingSystem;
+    private String          architecture;
+    private boolean         fxBundled;
+    private String          location;
+    private String          feature;
+    private BuildScope      buildScope;
+    private boolean         active;
+    private List<String>    usedBy;
+    private DetectionMethod detectionMethod;
+    private List<String>    aliases;
 
 
     // ******************** Constructors **************************************
     public DistributionInfo(final Instant timestamp, final Distribution distribution, final String name, final String apiString, final String version, final String jdkMajorVersion, final String operatingSystem, final String architecture, final boolean fxBundled, final String location, final String feature, final BuildScope buildScope, final boolean active, final List<String> usedBy) {
+        this(timestamp, distribution, name, apiString, version, jdkMajorVersion, operatingSystem, architecture, fxBundled, location, feature, buildScope, active, usedBy, DetectionMethod.NOT_FOUND);
+    }
+    public DistributionInfo(final Instant timestamp, final Distribution distribution, final String name, final String apiString, final String version, final String jdkMajorVersion, final String operatingSystem, final String architecture, final boolean fxBundled, final String location, final String feature, final BuildScope buildScope, final boolean active, final List<String> usedBy, final DetectionMethod detectionMethod) {
         this.timestamp       = timestamp;
         this.distribution    = distribution;
         this.name            = name;
@@ -76,6 +74,8 @@ public class DistributionInfo {
         this.buildScope      = buildScope;
         this.active          = active;
         this.usedBy          = usedBy;
+        this.detectionMethod = detectionMethod;
+        this.aliases         = new ArrayList<>();
     }
 
 
@@ -109,74 +109,127 @@ public class DistributionInfo {
 
     public List<String> usedBy() { return usedBy; }
 
+    public DetectionMethod detectionMethod() { return detectionMethod; }
+
+    // Other paths of the same physical JDK (symbolic links, hard links, bind mounts)
+    public List<String> aliases() { return aliases; }
+
     public boolean isBuildOfOpenJDK() { return buildScope == BuildScope.BUILD_OF_OPEN_JDK; }
 
     public boolean isBuildOfGraalVM() { return buildScope == BuildScope.BUILD_OF_GRAALVM; }
 
     public String toString(final OutputType outputType) throws IllegalArgumentException {
         if (null == outputType) { throw new IllegalArgumentException("outputType cannot be null"); }
-        final StringBuilder msgBuilder = new StringBuilder();
+        final StringWriter stringWriter = new StringWriter();
+        write(new OutputWriter(stringWriter), outputType);
+        return stringWriter.toString();
+    }
+
+    public void write(final OutputWriter writer, final OutputType outputType) throws IllegalArgumentException { write(writer, outputType, OutputField.DEFAULT); }
+    public void write(final OutputWriter writer, final OutputType outputType, final Set<OutputField> fields) throws IllegalArgumentException {
+        if (null == writer)     { throw new IllegalArgumentException("writer cannot be null"); }
+        if (null == outputType) { throw new IllegalArgumentException("outputType cannot be null"); }
+        if (null == fields)     { throw new IllegalArgumentException("fields cannot be null"); }
         switch(outputType) {
             case CSV -> {
-                return msgBuilder.append(distribution.getVendor().getUiString())
-                                 .append(COMMA)
-                                 .append(distribution.getUiString())
-                                 .append(COMMA)
-                                 .append(version())
-                                 .append(COMMA)
-                                 .append(timestamp())
-                                 .append(COMMA)
-                                 .append(location())
-                                 .append(COMMA)
-                                 .append(buildScope().getUiString().substring(buildScope.getUiString().lastIndexOf(" ") + 1))
-                                 .append(COMMA)
-                                 .append(active())
-                                 .append(COMMA)
-                                 .append(timestamp().getEpochSecond())
-                                 .append(NEW_LINE)
-                                 .toString();
+                boolean first = true;
+                for (CsvColumn column : CsvColumn.values()) {
+                    if (!fields.contains(column.field)) { continue; }
+                    if (!first) { writer.raw(COMMA); }
+                    switch (column) {
+                        case VENDOR       -> writer.csv(distribution().getVendor().getUiString());
+                        case DISTRIBUTION -> writer.csv(distribution().getUiString());
+                        case VERSION      -> writer.csv(version());
+                        case TIMESTAMP    -> writer.raw(timestamp().toString());
+                        case PATH         -> writer.csv(location());
+                        case TYPE         -> writeBuildScope(writer);
+                        case IN_USE       -> writer.bool(active());
+                        case EPOCH_SECOND -> writer.number(timestamp().getEpochSecond());
+                        case DETECTION    -> writer.raw(detectionMethod().getApiString());
+                        case FX_BUNDLED   -> writer.bool(fxBundled());
+                    }
+                    first = false;
+                }
+                writer.raw(NEW_LINE);
             }
             case BEAUTIFIED_JSON -> {
-                msgBuilder.append(INDENT).append(INDENT).append(CURLY_BRACKET_OPEN).append(NEW_LINE)
-                          .append(INDENT).append(INDENT).append(INDENT).append(QUOTES).append(FIELD_VENDOR).append(QUOTES).append(COLON).append(QUOTES).append(distribution().getVendor().getUiString()).append(QUOTES).append(COMMA_NEW_LINE)
-                          .append(INDENT).append(INDENT).append(INDENT).append(QUOTES).append(FIELD_NAME).append(QUOTES).append(COLON).append(QUOTES).append(distribution().getUiString()).append(QUOTES).append(COMMA_NEW_LINE)
-                          .append(INDENT).append(INDENT).append(INDENT).append(QUOTES).append(FIELD_VERSION).append(QUOTES).append(COLON).append(QUOTES).append(version()).append(QUOTES).append(COMMA_NEW_LINE)
-                          .append(INDENT).append(INDENT).append(INDENT).append(QUOTES).append(FIELD_TIMESTAMP).append(QUOTES).append(COLON).append(timestamp().getEpochSecond()).append(COMMA_NEW_LINE)
-                          .append(INDENT).append(INDENT).append(INDENT).append(QUOTES).append(FIELD_PATH).append(QUOTES).append(COLON).append(QUOTES).append(location().replaceAll("\\\\", "\\\\\\\\")).append(QUOTES).append(COMMA_NEW_LINE)
-                          .append(INDENT).append(INDENT).append(INDENT).append(QUOTES).append(FIELD_BUILD_SCOPE).append(QUOTES).append(COLON).append(QUOTES).append(buildScope().getUiString().substring(buildScope.getUiString().lastIndexOf(" ") + 1)).append(QUOTES).append(COMMA_NEW_LINE)
-                          .append(INDENT).append(INDENT).append(INDENT).append(QUOTES).append(FIELD_IN_USE).append(QUOTES).append(COLON).append(active()).append(COMMA_NEW_LINE)
-                          .append(INDENT).append(INDENT).append(INDENT).append(QUOTES).append(FIELD_USED_BY).append(QUOTES).append(COLON).append(SQUARE_BRACKET_OPEN).append(NEW_LINE);
-
-                usedBy().forEach(cmdLine -> {
-                    msgBuilder.append(INDENT).append(INDENT).append(INDENT).append(INDENT).append(QUOTES).append(cmdLine.replaceAll("\\\\", "\\\\\\\\")).append(QUOTES).append(COMMA_NEW_LINE);
-                });
-                if (!usedBy().isEmpty()) { msgBuilder.setLength(msgBuilder.length() - 2); }
-
-                msgBuilder.append(INDENT).append(INDENT).append(INDENT).append(SQUARE_BRACKET_CLOSE).append(NEW_LINE)
-                          .append(INDENT).append(INDENT).append(CURLY_BRACKET_CLOSE);
-                return msgBuilder.toString();
+                writer.indent(2).raw(CURLY_BRACKET_OPEN).raw(NEW_LINE);
+                writeJsonFields(writer, fields, true);
+                writer.raw(NEW_LINE)
+                      .indent(2).raw(CURLY_BRACKET_CLOSE);
             }
             default  -> {
-                msgBuilder.append(CURLY_BRACKET_OPEN)
-                          .append(QUOTES).append(FIELD_VENDOR).append(QUOTES).append(COLON).append(QUOTES).append(distribution().getVendor().getUiString()).append(QUOTES).append(COMMA)
-                          .append(QUOTES).append(FIELD_NAME).append(QUOTES).append(COLON).append(QUOTES).append(distribution().getUiString()).append(QUOTES).append(COMMA)
-                          .append(QUOTES).append(FIELD_VERSION).append(QUOTES).append(COLON).append(QUOTES).append(version()).append(QUOTES).append(COMMA)
-                          .append(QUOTES).append(FIELD_TIMESTAMP).append(QUOTES).append(COLON).append(timestamp().getEpochSecond()).append(COMMA)
-                          .append(QUOTES).append(FIELD_PATH).append(QUOTES).append(COLON).append(QUOTES).append(location().replaceAll("\\\\", "\\\\\\\\")).append(QUOTES).append(COMMA)
-                          .append(QUOTES).append(FIELD_BUILD_SCOPE).append(QUOTES).append(COLON).append(QUOTES).append(buildScope().getUiString().substring(buildScope.getUiString().lastIndexOf(" ") + 1)).append(QUOTES).append(COMMA)
-                          .append(QUOTES).append(FIELD_IN_USE).append(QUOTES).append(COLON).append(active()).append(COMMA)
-                          .append(QUOTES).append(FIELD_USED_BY).append(QUOTES).append(COLON).append(SQUARE_BRACKET_OPEN);
-                usedBy().forEach(cmdLine -> {
-                    msgBuilder.append(QUOTES).append(cmdLine.replaceAll("\\\\", "\\\\\\\\")).append(QUOTES).append(COMMA);
-                });
-                          if (!usedBy().isEmpty()) { msgBuilder.setLength(msgBuilder.length() - 1); }
-                msgBuilder.append(SQUARE_BRACKET_CLOSE)
-                          .append(CURLY_BRACKET_CLOSE);
-                return msgBuilder.toString();
+                writer.raw(CURLY_BRACKET_OPEN);
+                writeJsonFields(writer, fields, false);
+                writer.raw(CURLY_BRACKET_CLOSE);
             }
         }
     }
 
+    public static void writeCsvHeader(final OutputWriter writer, final Set<OutputField> fields) {
+        boolean first = true;
+        for (CsvColumn column : CsvColumn.values()) {
+            if (!fields.contains(column.field)) { continue; }
+            if (!first) { writer.raw(COMMA); }
+            writer.raw(column.header);
+            first = false;
+        }
+        writer.raw(NEW_LINE);
+    }
+
+    // Only the last word of the build scope (e.g. BUILD_OF_OPEN_JDK)
+    private void writeBuildScope(final OutputWriter writer) {
+        final String buildScopeString = buildScope().getUiString();
+        writer.raw(buildScopeString, buildScopeString.lastIndexOf(" ") + 1);
+    }
+
+    private void writeJsonFields(final OutputWriter writer, final Set<OutputField> fields, final boolean beautified) {
+        boolean first = true;
+        for (OutputField field : OutputField.values()) {
+            if (OutputField.SYSINFO == field || !fields.contains(field)) { continue; }
+            if (!first) { writer.raw(beautified ? COMMA_NEW_LINE : COMMA); }
+            if (beautified) { writer.indent(3); }
+            writer.name(field.getApiString());
+            switch (field) {
+                case VENDOR      -> writer.string(distribution().getVendor().getUiString());
+                case NAME        -> writer.string(distribution().getUiString());
+                case VERSION     -> writer.string(version());
+                case TIMESTAMP   -> writer.number(timestamp().getEpochSecond());
+                case PATH        -> writer.string(location());
+                case ALIASES     -> {
+                    writer.raw(SQUARE_BRACKET_OPEN);
+                    for (int i = 0 ; i < aliases().size() ; i++) {
+                        if (i > 0) { writer.raw(COMMA); }
+                        writer.string(aliases().get(i));
+                    }
+                    writer.raw(SQUARE_BRACKET_CLOSE);
+                }
+                case BUILD_SCOPE -> {
+                    writer.raw(QUOTES);
+                    writeBuildScope(writer);
+                    writer.raw(QUOTES);
+                }
+                case DETECTION   -> writer.string(detectionMethod().getApiString());
+                case IN_USE      -> writer.bool(active());
+                case USED_BY     -> {
+                    writer.raw(SQUARE_BRACKET_OPEN);
+                    if (beautified) { writer.raw(NEW_LINE); }
+                    for (int i = 0 ; i < usedBy().size() ; i++) {
+                        if (beautified) {
+                            writer.indent(4).string(usedBy().get(i)).raw(i < usedBy().size() - 1 ? COMMA_NEW_LINE : NEW_LINE);
+                        } else {
+                            if (i > 0) { writer.raw(COMMA); }
+                            writer.string(usedBy().get(i));
+                        }
+                    }
+                    if (beautified) { writer.indent(3); }
+                    writer.raw(SQUARE_BRACKET_CLOSE);
+                }
+                case FX_BUNDLED  -> writer.bool(fxBundled());
+            }
+            first = false;
+        }
+    }
 
     @Override public String toString() {
         return toString(JSON);
@@ -201,4 +254,27 @@ public class DistributionInfo {
     @Override public int hashCode() {
         return Objects.hash(distribution, name, apiString, version, jdkMajorVersion, operatingSystem, architecture, fxBundled, location, feature, buildScope);
     }
+
+
+    // Columns of the csv output, the timestamp is written twice (ISO 8601 and epoch seconds)
+    private enum CsvColumn {
+        VENDOR("Vendor", OutputField.VENDOR),
+        DISTRIBUTION("Distribution", OutputField.NAME),
+        VERSION("Version", OutputField.VERSION),
+        TIMESTAMP("Timestamp", OutputField.TIMESTAMP),
+        PATH("Path", OutputField.PATH),
+        TYPE("Type", OutputField.BUILD_SCOPE),
+        IN_USE("InUse", OutputField.IN_USE),
+        EPOCH_SECOND("Timestamp", OutputField.TIMESTAMP),
+        DETECTION("Detection", OutputField.DETECTION),
+        FX_BUNDLED("FxBundled", OutputField.FX_BUNDLED);
+
+        private final String      header;
+        private final OutputField field;
+
+        CsvColumn(final String header, final OutputField field) {
+            this.header = header;
+            this.field  = field;
+        }
+    }
 }
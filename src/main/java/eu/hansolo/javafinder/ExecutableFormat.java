@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import eu.hansolo.jdktools.OperatingSystem;
+
+
+public enum ExecutableFormat {
+    ELF("ELF", "elf"),
+    PE("PE", "pe"),
+    MACH_O("Mach-O", "mach_o"),
+    MACH_O_UNIVERSAL("Mach-O universal", "mach_o_universal"),
+    SCRIPT("Script", "script"),
+    NOT_FOUND("", "");
+
+    private final String uiString;
+    private final String apiString;
+
+
+    // ******************** Constructors **************************************
+    ExecutableFormat(final String uiString, final String apiString) {
+        this.uiString  = uiString;
+        this.apiString = apiString;
+    }
+
+
+    // ******************** Methods *******************************************
+    public final String getUiString() { return uiString; }
+
+    public final String getApiString() { return apiString; }
+
+    // Scripts run everywhere as long as their interpreter exists, that is checked by ExecutableHeader
+    public final boolean isNativeFormatOf(final OperatingSystem operatingSystem) {
+        switch (this) {
+            case ELF                      -> { return OperatingSystem.WINDOWS != operatingSystem && OperatingSystem.MACOS != operatingSystem; }
+            case PE                       -> { return OperatingSystem.WINDOWS == operatingSystem; }
+            case MACH_O, MACH_O_UNIVERSAL -> { return OperatingSystem.MACOS == operatingSystem; }
+            case SCRIPT                   -> { return OperatingSystem.WINDOWS != operatingSystem; }
+            default                       -> { return false; }
+        }
+    }
+
+    public static final ExecutableFormat fromText(final String text) {
+        if (null == text || text.isEmpty()) { return NOT_FOUND; }
+        switch(text) {
+            case "elf", "ELF"                                               -> { return ELF; }
+            case "pe", "PE"                                                 -> { return PE; }
+            case "mach_o", "MACH_O", "Mach-O"                               -> { return MACH_O; }
+            case "mach_o_universal", "MACH_O_UNIVERSAL", "Mach-O universal" -> { return MACH_O_UNIVERSAL; }
+            case "script", "SCRIPT", "Script"                               -> { return SCRIPT; }
+            default                                                         -> { return NOT_FOUND; }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.Bitness;
+import eu.hansolo.jdktools.OperatingSystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+
+// Format, cpu architecture, bitness and interpreter of an executable, read from its first bytes without executing it.
+// The interpreter is the dynamic loader of an ELF binary (e.g. /lib/ld-musl-x86_64.so.1 for musl builds) or the shebang line of a script.
+public record ExecutableHeader(ExecutableFormat format, Architecture architecture, Bitness bitness, String interpreter) {
+    public  static final ExecutableHeader NOT_FOUND          = new ExecutableHeader(ExecutableFormat.NOT_FOUND, Architecture.NOT_FOUND, Bitness.NOT_FOUND, "");
+    private static final int              HEADER_SIZE        = 512;
+    private static final int              MAX_INTERPRETER    = 256;
+    private static final int              ELF_MAGIC          = 0x7F454C46;
+    private static final int              MACH_O_MAGIC_32    = 0xFEEDFACE;
+    private static final int              MACH_O_MAGIC_64    = 0xFEEDFACF;
+    private static final int              MACH_O_UNIVERSAL   = 0xCAFEBABE;
+    private static final int              MACH_O_ABI_64      = 0x01000000;
+    private static final int              PT_INTERP          = 3;
+    private static final Architecture     HOST_ARCHITECTURE  = normalize(Architecture.fromText(System.getProperty("os.arch")));
+
+
+    // ******************** Methods *******************************************
+    public boolean isValid() { return ExecutableFormat.NOT_FOUND != format; }
+
+    public boolean isMusl() { return interpreter.contains("musl"); }
+
+    public String getOperatingSystemApiString() {
+        switch (format) {
+            case ELF                      -> { return isMusl() ? "linux-musl" : "linux"; }
+            case PE                       -> { return "windows"; }
+            case MACH_O, MACH_O_UNIVERSAL -> { return "macos"; }
+            default                       -> { return ""; }
+        }
+    }
+
+    // True if the host could start the executable, an ELF binary also needs its dynamic loader (glibc vs. musl)
+    public boolean canRunOn(final OperatingSystem operatingSystem, final Architecture hostArchitecture) {
+        if (!isValid() || !format.isNativeFormatOf(operatingSystem)) { return false; }
+        if (!interpreter.isEmpty() && OperatingSystem.WINDOWS != operatingSystem) {
+            final String interpreterPath = interpreter.split("\\s+")[0];
+            if (interpreterPath.startsWith("/") && !Files.exists(Paths.get(interpreterPath))) { return false; }
+        }
+        if (ExecutableFormat.SCRIPT == format || Architecture.NOT_FOUND == architecture) { return true; }
+        final Architecture host = normalize(hostArchitecture);
+        final Architecture arch = normalize(architecture);
+        if (host == arch) { return true; }
+        // 32 bit x86 binaries run on x64 hosts, x64 binaries run on Apple Silicon via Rosetta 2
+        return (Architecture.AMD64 == host && Architecture.X86 == arch) || (OperatingSystem.MACOS == operatingSystem && Architecture.AARCH64 == host && Architecture.AMD64 == arch);
+    }
+
+    public static ExecutableHeader read(final Path executable) {
+        try (FileChannel channel = FileChannel.open(executable, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) > 0) { /* Read up to HEADER_SIZE bytes */ }
+            header.flip();
+            if (header.remaining() < 4) { return NOT_FOUND; }
+            final int magic = header.order(ByteOrder.BIG_ENDIAN).getInt(0);
+            if (magic == ELF_MAGIC)                                     { return readElf(channel, header); }
+            if ((magic >>> 16) == 0x4D5A)                               { return readPe(channel, header); }
+            if (magic == MACH_O_MAGIC_32 || magic == MACH_O_MAGIC_64)   { return readMachO(header.order(ByteOrder.BIG_ENDIAN)); }
+            if (Integer.reverseBytes(magic) == MACH_O_MAGIC_32 ||
+                Integer.reverseBytes(magic) == MACH_O_MAGIC_64)         { return readMachO(header.order(ByteOrder.LITTLE_ENDIAN)); }
+            if (magic == MACH_O_UNIVERSAL)                              { return readMachOUniversal(header); }
+            if ((magic >>> 16) == 0x2321)                               { return readScript(header); }
+            return NOT_FOUND;
+        } catch (IOException | RuntimeException e) {
+            return NOT_FOUND;
+        }
+    }
+
+    private static ExecutableHeader readElf(final FileChannel channel, final ByteBuffer header) throws IOException {
+        if (header.remaining() < 0x34) { return NOT_FOUND; }
+        final boolean is64Bit = header.get(4) == 2;
+        header.order(header.get(5) == 2 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        final int          machine      = Short.toUnsignedInt(header.getShort(0x12));
+        final Architecture architecture = switch (machine) {
+            case 0x03 -> Architecture.X86;
+            case 0x08 -> Architecture.MIPS;
+            case 0x14 -> Architecture.PPC;
+            case 0x15 -> ByteOrder.LITTLE_ENDIAN == header.order() ? Architecture.PPC64LE : Architecture.PPC64;
+            case 0x16 -> Architecture.S390X;
+            case 0x28 -> Architecture.ARM;
+            case 0x2B -> Architecture.SPARCV9;
+            case 0x3E -> Architecture.AMD64;
+            case 0xB7 -> Architecture.AARCH64;
+            case 0xF3 -> Architecture.RISCV64;
+            default   -> Architecture.NOT_FOUND;
+        };
+
+        // Look for the PT_INTERP program header that names the dynamic loader
+        final long programHeaderOffset = is64Bit ? header.getLong(0x20)                     : Integer.toUnsignedLong(header.getInt(0x1C));
+        final int  programHeaderSize   = is64Bit ? Short.toUnsignedInt(header.getShort(0x36)) : Short.toUnsignedInt(header.getShort(0x2A));
+        final int  noOfProgramHeaders  = is64Bit ? Short.toUnsignedInt(header.getShort(0x38)) : Short.toUnsignedInt(header.getShort(0x2C));
+        String interpreter = "";
+        if (programHeaderSize > 0 && noOfProgramHeaders > 0 && noOfProgramHeaders < 256) {
+            final ByteBuffer programHeaders = readAt(channel, programHeaderOffset, programHeaderSize * noOfProgramHeaders).order(header.order());
+            for (int i = 0 ; i < noOfProgramHeaders && (i + 1) * programHeaderSize <= programHeaders.limit() ; i++) {
+                final int base = i * programHeaderSize;
+                if (programHeaders.getInt(base) != PT_INTERP) { continue; }
+                final long offset = is64Bit ? programHeaders.getLong(base + 0x08) : Integer.toUnsignedLong(programHeaders.getInt(base + 0x04));
+                final long size   = is64Bit ? programHeaders.getLong(base + 0x20) : Integer.toUnsignedLong(programHeaders.getInt(base + 0x10));
+                interpreter = toText(readAt(channel, offset, (int) Math.min(size, MAX_INTERPRETER)));
+                break;
+            }
+        }
+        return new ExecutableHeader(ExecutableFormat.ELF, architecture, is64Bit ? Bitness.BIT_64 : Bitness.BIT_32, interpreter);
+    }
+
+    private static ExecutableHeader readPe(final FileChannel channel, final ByteBuffer header) throws IOException {
+        if (header.remaining() < 0x40) { return NOT_FOUND; }
+        final long       peOffset = Integer.toUnsignedLong(header.order(ByteOrder.LITTLE_ENDIAN).getInt(0x3C));
+        final ByteBuffer pe       = readAt(channel, peOffset, 26).order(ByteOrder.LITTLE_ENDIAN);
+        if (pe.limit() < 26 || pe.getInt(0) != 0x00004550) { return NOT_FOUND; }
+        final Architecture architecture = switch (Short.toUnsignedInt(pe.getShort(4))) {
+            case 0x014C -> Architecture.X86;
+            case 0x01C4 -> Architecture.ARM;
+            case 0x8664 -> Architecture.AMD64;
+            case 0xAA64 -> Architecture.AARCH64;
+            default     -> Architecture.NOT_FOUND;
+        };
+        final Bitness bitness = Short.toUnsignedInt(pe.getShort(24)) == 0x20B ? Bitness.BIT_64 : Bitness.BIT_32;
+        return new ExecutableHeader(ExecutableFormat.PE, architecture, bitness, "");
+    }
+
+    private static ExecutableHeader readMachO(final ByteBuffer header) {
+        if (header.remaining() < 8) { return NOT_FOUND; }
+        final int cpuType = header.getInt(4);
+        return new ExecutableHeader(ExecutableFormat.MACH_O, machOArchitecture(cpuType), (cpuType & MACH_O_ABI_64) != 0 ? Bitness.BIT_64 : Bitness.BIT_32, "");
+    }
+
+    // Fat binaries contain several architectures, the one matching the host is reported if present
+    private static ExecutableHeader readMachOUniversal(final ByteBuffer header) {
+        final int noOfArchitectures = header.order(ByteOrder.BIG_ENDIAN).getInt(4);
+        // Java class files share the magic number but have a class file version >= 45 at this position
+        if (noOfArchitectures <= 0 || noOfArchitectures > 20 || header.remaining() < 8 + noOfArchitectures * 20) { return NOT_FOUND; }
+        final List<Integer> cpuTypes = new ArrayList<>();
+        for (int i = 0 ; i < noOfArchitectures ; i++) { cpuTypes.add(header.getInt(8 + i * 20)); }
+        final int cpuType = cpuTypes.stream().filter(type -> machOArchitecture(type) == HOST_ARCHITECTURE).findFirst().orElse(cpuTypes.get(0));
+        return new ExecutableHeader(ExecutableFormat.MACH_O_UNIVERSAL, machOArchitecture(cpuType), (cpuType & MACH_O_ABI_64) != 0 ? Bitness.BIT_64 : Bitness.BIT_32, "");
+    }
+
+    private static ExecutableHeader readScript(final ByteBuffer header) {
+        final String content = toText(header.position(2));
+        final int    lineEnd = content.indexOf('\n');
+        return new ExecutableHeader(ExecutableFormat.SCRIPT, Architecture.NOT_FOUND, Bitness.NOT_FOUND, (lineEnd < 0 ? content : content.substring(0, lineEnd)).trim());
+    }
+
+    private static Architecture machOArchitecture(final int cpuType) {
+        return switch (cpuType) {
+            case 0x00000007 -> Architecture.X86;
+            case 0x01000007 -> Architecture.AMD64;
+            case 0x0000000C -> Architecture.ARM;
+            case 0x0100000C -> Architecture.AARCH64;
+            case 0x00000012 -> Architecture.PPC;
+            case 0x01000012 -> Architecture.PPC64;
+            default         -> Architecture.NOT_FOUND;
+        };
+    }
+
+    private static Architecture normalize(final Architecture architecture) {
+        if (null == architecture) { return Architecture.NOT_FOUND; }
+        return switch (architecture) {
+            case X64, X86_64      -> Architecture.AMD64;
+            case ARM64            -> Architecture.AARCH64;
+            case I386, I586, I686 -> Architecture.X86;
+            default               -> architecture;
+        };
+    }
+
+    private static ByteBuffer readAt(final FileChannel channel, final long position, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(Math.max(0, Math.min(length, 64 * 1024)));
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, offset);
+            if (read <= 0) { break; }
+            offset += read;
+        }
+        return buffer.flip();
+    }
+
+    // Zero terminated ascii text
+    private static String toText(final ByteBuffer buffer) {
+        final int start = buffer.position();
+        int       end   = start;
+        while (end < buffer.limit() && buffer.get(end) != 0) { end++; }
+        final byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+
+// Walks a directory tree in parallel using one fork/join task per directory.
+// Symbolic links are neither followed nor reported (same as the former Files.walkFileTree() visitor)
+public class FileWalker {
+    public  static final List<String>   NESTED_RUNTIMES = List.of("jre");
+    private static final String         BIN_FOLDER      = "bin";
+    private static final String         LIB_FOLDER      = "lib";
+    private static final String         RELEASE_FILE    = "release";
+    private static final String         MODULES_FILE    = "modules";
+    private static final String         RT_JAR_FILE     = "rt.jar";
+    private static final Path           LINUX_MOUNTS    = Paths.get("/proc/self/mounts");
+    private        final ForkJoinPool   pool;
+    private        final LongAdder      visitedEntries  = new LongAdder();
+    private        final LongAdder      skippedDirs     = new LongAdder();
+    private              DirectoryCache directoryCache;
+
+
+    // ******************** Constructors **************************************
+    public FileWalker() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    public FileWalker(final int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+
+    // ******************** Methods *******************************************
+    public List<Path> findFileByName(final Path root, final String filename, final ScanOptions options) {
+        final Queue<Path> result = new ConcurrentLinkedQueue<>();
+        walk(root, filename, options, result::add);
+        return new ArrayList<>(result);
+    }
+
+    public void walk(final Path root, final String filename, final ScanOptions options, final Consumer<Path> consumer) {
+        if (null == root || null == filename || null == options || null == consumer) { return; }
+        final BasicFileAttributes attrs = readAttributes(root, null != directoryCache);
+        if (null == attrs || attrs.isSymbolicLink()) { return; }
+        if (attrs.isDirectory()) {
+            // The search root itself is never excluded, only file stores mounted below it
+            final Path      absoluteRoot   = root.toAbsolutePath().normalize();
+            final Set<Path> excludedMounts = getMountPoints(options.excludedFileStoreTypes());
+            excludedMounts.remove(absoluteRoot);
+            final List<PathMatcher> excludeMatchers = options.excludeGlobs().stream().map(glob -> FileSystems.getDefault().getPathMatcher("glob:" + glob)).toList();
+            final WalkContext       context         = new WalkContext(filename, consumer, options, excludedMounts, excludeMatchers, directoryCache, visitedEntries, skippedDirs, ConcurrentHashMap.newKeySet());
+            pool.invoke(new WalkTask(absoluteRoot, attrs, 0, context));
+        } else if (isMatch(root, filename)) {
+            consumer.accept(root);
+        }
+    }
+
+    public long getVisitedEntries() { return visitedEntries.sum(); }
+    public void resetVisitedEntries() { visitedEntries.reset(); }
+
+    public long getSkippedDirs() { return skippedDirs.sum(); }
+
+    public DirectoryCache getDirectoryCache() { return directoryCache; }
+    public void setDirectoryCache(final DirectoryCache directoryCache) { this.directoryCache = directoryCache; }
+
+    public void shutdown() { pool.shutdown(); }
+
+    // Returns the mount points of all file stores with one of the given types (e.g. proc, nfs)
+    public static Set<Path> getMountPoints(final Set<String> fileStoreTypes) {
+        final Set<Path> mountPoints = new HashSet<>();
+        if (null == fileStoreTypes || fileStoreTypes.isEmpty()) { return mountPoints; }
+        if (Files.isReadable(LINUX_MOUNTS)) {
+            // Format: device mountpoint type options dump pass (whitespace in mountpoint is octal escaped)
+            try {
+                for (String line : Files.readAllLines(LINUX_MOUNTS)) {
+                    final String[] parts = line.split(" ");
+                    if (parts.length > 2 && fileStoreTypes.contains(parts[2])) {
+                        mountPoints.add(Paths.get(unescapeMountPoint(parts[1])));
+                    }
+                }
+                return mountPoints;
+            } catch (IOException | RuntimeException e) {
+                mountPoints.clear();
+            }
+        }
+        // FileStore.toString() returns "mountpoint (device)" on Linux and macOS
+        for (FileStore fileStore : FileSystems.getDefault().getFileStores()) {
+            if (!fileStoreTypes.contains(fileStore.type())) { continue; }
+            final String text  = fileStore.toString();
+            final int    index = text.lastIndexOf(" (");
+            if (index > 0) {
+                try {
+                    mountPoints.add(Paths.get(text.substring(0, index)));
+                } catch (RuntimeException e) { /* Not a path */ }
+            }
+        }
+        return mountPoints;
+    }
+
+    private static String unescapeMountPoint(final String text) {
+        if (text.indexOf('\\') < 0) { return text; }
+        final StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0 ; i < text.length() ; i++) {
+            final char c = text.charAt(i);
+            if (c == '\\' && i + 3 < text.length()) {
+                builder.append((char) Integer.parseInt(text.substring(i + 1, i + 4), 8));
+                i += 3;
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isMatch(final Path file, final String filename) {
+        final Path name = file.getFileName();
+        return null != name && filename.equals(name.toString().toLowerCase());
+    }
+
+    private static BasicFileAttributes readAttributes(final Path path) { return readAttributes(path, false); }
+    // The directory cache needs the change time, it's read with the same stat
+    private static BasicFileAttributes readAttributes(final Path path, final boolean withChangeTime) {
+        try {
+            return withChangeTime ? DirectoryCache.readAttributes(path) : Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // A JDK/JRE home is a folder with bin/java next to a release file, lib/modules (9+) or lib/rt.jar (8)
+    private static boolean isJdkHome(final Path dir, final String filename) {
+        final BasicFileAttributes javaAttrs = readAttributes(dir.resolve(BIN_FOLDER).resolve(filename));
+        if (null == javaAttrs || !javaAttrs.isRegularFile()) { return false; }
+        return Files.exists(dir.resolve(RELEASE_FILE)) ||
+               Files.exists(dir.resolve(LIB_FOLDER).resolve(MODULES_FILE)) ||
+               Files.exists(dir.resolve(LIB_FOLDER).resolve(RT_JAR_FILE));
+    }
+
+
+    // Result of walking a subtree, only EMPTY subtrees are remembered in the directory cache
+    private enum Outcome {
+        FOUND, EMPTY, INCOMPLETE;
+
+        public Outcome combine(final Outcome other) {
+            if (FOUND == this || FOUND == other)           { return FOUND; }
+            if (INCOMPLETE == this || INCOMPLETE == other) { return INCOMPLETE; }
+            return EMPTY;
+        }
+    }
+
+    private record WalkContext(String filename, Consumer<Path> consumer, ScanOptions options, Set<Path> excludedMounts, List<PathMatcher> excludeMatchers, DirectoryCache directoryCache, LongAdder visitedEntries, LongAdder skippedDirs, Set<Object> visitedDirs) {
+        // Bind mounts and other aliases of a directory share its file key (device and inode on unix), so each physical directory is walked only once
+        public boolean enter(final BasicFileAttributes attrs) {
+            final Object fileKey = attrs.fileKey();
+            return null == fileKey || visitedDirs.add(fileKey);
+        }
+
+        // Globs without a separator (e.g. node_modules) are matched against the file name only
+        public boolean isExcluded(final Path path) {
+            if (!excludedMounts.isEmpty() && excludedMounts.contains(path)) { return true; }
+            for (int i = 0 ; i < excludeMatchers.size() ; i++) {
+                final String glob = options.excludeGlobs().get(i);
+                final Path   test = glob.indexOf('/') < 0 && glob.indexOf('\\') < 0 ? path.getFileName() : path;
+                if (null != test && excludeMatchers.get(i).matches(test)) { return true; }
+            }
+            return false;
+        }
+    }
+
+    @SuppressWarnings("serial") // Never serialized
+    private static class WalkTask extends RecursiveTask<Outcome> {
+        private final Path                dir;
+        private final BasicFileAttributes attrs;
+        private final int                 depth;
+        private final WalkContext         context;
+
+
+        public WalkTask(final Path dir, final BasicFileAttributes attrs, final int depth, final WalkContext context) {
+            this.dir     = dir;
+            this.attrs   = attrs;
+            this.depth   = depth;
+            this.context = context;
+        }
+
+
+        @Override protected Outcome compute() {
+            final String         filename       = context.filename();
+            final int            maxDepth       = context.options().maxDepth();
+            final DirectoryCache directoryCache = context.directoryCache();
+            final List<WalkTask> subTasks       = new ArrayList<>();
+            Outcome              outcome        = Outcome.EMPTY;
+            boolean              hasBinFolder   = false;
+            boolean              hasHomeMarker  = false;
+            if (depth >= maxDepth)     { return Outcome.INCOMPLETE; }
+            if (!context.enter(attrs)) {
+                // Already walked under another path, only report a JDK home itself so the caller can record it as an alias
+                if (isJdkHome(dir, filename)) { context.consumer().accept(dir.resolve(BIN_FOLDER).resolve(filename)); }
+                return Outcome.INCOMPLETE;
+            }
+            // An unchanged directory that contained no java executable last time is not listed again, only its subdirectories are checked
+            final String[]     knownChildren = null == directoryCache ? null : directoryCache.getKnownEmptyChildren(dir, attrs);
+            final List<String> children      = new ArrayList<>();
+            if (null != knownChildren) {
+                context.skippedDirs().increment();
+                for (String name : knownChildren) {
+                    final Path                entry      = dir.resolve(name);
+                    final BasicFileAttributes entryAttrs = readAttributes(entry, true);
+                    if (null == entryAttrs || !entryAttrs.isDirectory()) { outcome = outcome.combine(Outcome.INCOMPLETE); continue; }
+                    if (context.isExcluded(entry))                       { outcome = outcome.combine(Outcome.INCOMPLETE); continue; }
+                    children.add(name);
+                    subTasks.add(new WalkTask(entry, entryAttrs, depth + 1, context));
+                }
+            } else {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                    for (Path entry : stream) {
+                        context.visitedEntries().increment();
+                        final BasicFileAttributes entryAttrs = readAttributes(entry, null != directoryCache);
+                        if (null == entryAttrs)              { outcome = outcome.combine(Outcome.INCOMPLETE); continue; }
+                        if (entryAttrs.isSymbolicLink())     { continue; }
+                        if (context.isExcluded(entry))       { outcome = outcome.combine(Outcome.INCOMPLETE); continue; }
+                        final String name = entry.getFileName().toString();
+                        if (entryAttrs.isDirectory()) {
+                            if (BIN_FOLDER.equals(name))      { hasBinFolder  = true; }
+                            else if (LIB_FOLDER.equals(name)) { hasHomeMarker = true; }
+                            children.add(name);
+                            subTasks.add(new WalkTask(entry, entryAttrs, depth + 1, context));
+                        } else if (filename.equals(name.toLowerCase())) {
+                            context.consumer().accept(entry);
+                            outcome = Outcome.FOUND;
+                        } else if (RELEASE_FILE.equals(name)) {
+                            hasHomeMarker = true;
+                        }
+                    }
+                } catch (IOException | DirectoryIteratorException e) {
+                    // Directory not readable, skip it like the former visitor did
+                    return Outcome.INCOMPLETE;
+                }
+            }
+            if (context.options().pruneJdkHomes() && hasBinFolder && hasHomeMarker && depth + 2 <= maxDepth && FileVisitResult.SKIP_SUBTREE == visitJdkHome(subTasks)) {
+                return Outcome.FOUND;
+            }
+            if (!subTasks.isEmpty()) {
+                invokeAll(subTasks);
+                for (WalkTask subTask : subTasks) { outcome = outcome.combine(subTask.join()); }
+            }
+            if (Outcome.EMPTY == outcome && null != directoryCache) { directoryCache.markEmpty(dir, attrs, children.toArray(new String[0])); }
+            return outcome;
+        }
+
+        // Report bin/java of a JDK home directly and only descend into nested runtimes (e.g. jre/ in JDK 8)
+        private FileVisitResult visitJdkHome(final List<WalkTask> subTasks) {
+            final String filename = context.filename();
+            if (!isJdkHome(dir, filename)) { return FileVisitResult.CONTINUE; }
+            final Path java = dir.resolve(BIN_FOLDER).resolve(filename);
+            if (!context.isExcluded(java)) { context.consumer().accept(java); }
+            final List<WalkTask> nestedRuntimes = subTasks.stream().filter(task -> NESTED_RUNTIMES.contains(task.dir.getFileName().toString())).toList();
+            if (!nestedRuntimes.isEmpty()) { invokeAll(nestedRuntimes); }
+            return FileVisitResult.SKIP_SUBTREE;
+        }
+    }
+}
@@ -16,7 +16,9 @@
 
 package eu.hansolo.javafinder;
 
+import eu.hansolo.javafinder.Classifier.Classification;
 import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.Bitness;
 import eu.hansolo.jdktools.OperatingMode;
 import eu.hansolo.jdktools.OperatingSystem;
 import eu.hansolo.jdktools.scopes.BuildScope;
@@ -26,269 +28,278 @@ import eu.hansolo.jdktools.versioning.VersionNumber;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.InetAddress;
-import java.net.UnknownHostException;
-import java.nio.file.FileVisitOption;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.Properties;
+import java.util.Queue;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
-import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 
 public class Finder {
-    public static final  String            MACOS_JAVA_INSTALL_PATH   = "/System/Volumes/Data/Library/Java/JavaVirtualMachines/";
-    public static final  String            WINDOWS_JAVA_INSTALL_PATH = "C:\\Program Files\\Java\\";
-    public static final  String            LINUX_JAVA_INSTALL_PATH   = "/usr/lib/jvm";
-    private static final Pattern           GRAALVM_VERSION_PATTERN   = Pattern.compile("(.*graalvm\\s)(.*)(\\s\\(.*)");
-    private static final Matcher           GRAALVM_VERSION_MATCHER   = GRAALVM_VERSION_PATTERN.matcher("");
-    private static final Pattern           ZULU_BUILD_PATTERN        = Pattern.compile("\\((build\\s)(.*)\\)");
-    private static final Matcher           ZULU_BUILD_MATCHER        = ZULU_BUILD_PATTERN.matcher("");
-    private static final String[]          MAC_JAVA_HOME_CMDS        = { "/bin/sh", "-c", "echo $JAVA_HOME" };
-    private static final String[]          LINUX_JAVA_HOME_CMDS      = { "/bin/sh", "-c", "echo $JAVA_HOME" };
-    private static final String[]          WIN_JAVA_HOME_CMDS        = { "cmd.exe", "/c", "echo %JAVA_HOME%" };
-    private static final String[]          DETECT_ALPINE_CMDS        = { "/bin/sh", "-c", "cat /etc/os-release | grep 'NAME=' | grep -ic 'Alpine'" };
-    private static final String[]          UX_DETECT_ARCH_CMDS       = { "/bin/sh", "-c", "uname -m" };
-    private static final String[]          MAC_DETECT_ROSETTA2_CMDS  = { "/bin/sh", "-c", "sysctl -in sysctl.proc_translated" };
-    private static final String[]          WIN_DETECT_ARCH_CMDS      = { "cmd.exe", "/c", "SET Processor" };
-    private static final String[]          UX_DETECT_HOSTNAME_CMDS   = { "/bin/sh", "-c", "hostname" };
-    private static final String[]          WIN_DETECT_HOSTNAME_CMDS  = { "cmd.exe", "/c", "hostname.exe" };
-    private static final Pattern           ARCHITECTURE_PATTERN      = Pattern.compile("(PROCESSOR_ARCHITECTURE)=([a-zA-Z0-9_\\-]+)");
-    private static final Matcher           ARCHITECTURE_MATCHER      = ARCHITECTURE_PATTERN.matcher("");
-    private final        List<ProcessInfo> usedDistros;
-    private              ExecutorService   service                   = Executors.newSingleThreadExecutor();
-    private              Properties        releaseProperties         = new Properties();
-    private              OperatingSystem   operatingSystem           = detectOperatingSystem();
-    private              Architecture      architecture              = detectArchitecture();
-    private              String            javaFile                  = OperatingSystem.WINDOWS == operatingSystem ? "java.exe" : "java";
-    private              String            javaHome                  = "";
-    private              boolean           isAlpine                  = false;
+    public static final  String             MACOS_JAVA_INSTALL_PATH   = "/System/Volumes/Data/Library/Java/JavaVirtualMachines/";
+    public static final  String             WINDOWS_JAVA_INSTALL_PATH = "C:\\Program Files\\Java\\";
+    public static final  String             LINUX_JAVA_INSTALL_PATH   = "/usr/lib/jvm";
+    private static final Pattern            GRAALVM_VERSION_PATTERN   = Pattern.compile("(.*graalvm\\s)(.*)(\\s\\(.*)");
+    private static final Pattern            ZULU_BUILD_PATTERN        = Pattern.compile("\\((build\\s)(.*)\\)");
+    private static final int                CANDIDATE_QUEUE_CAPACITY  = 64;
+    private static final int                CANDIDATE_WORKERS         = 16;
+    private static final Path               END_OF_CANDIDATES         = Paths.get("");
+    private static final ScanOptions        RESOLVE_SCAN_OPTIONS      = new ScanOptions(5, ScanOptions.DEFAULT_EXCLUDED_FILE_STORE_TYPES, List.of(), true);
+    private static final Set<OutputField>   RESOLVE_FIELDS            = Collections.unmodifiableSet(EnumSet.of(OutputField.VENDOR, OutputField.NAME, OutputField.VERSION, OutputField.PATH, OutputField.BUILD_SCOPE, OutputField.DETECTION));
+    private static final Set<String>        AMBIGUOUS_IMPLEMENTORS    = Set.of("Oracle Corporation", "IBM Corporation", "International Business Machines Corporation", "GraalVM Community", "GraalVM Enterprise");
+    private volatile     List<ProcessInfo>  usedDistros               = List.of();
+    private final        Usage              usage;
+    private volatile     Set<OutputField>   fields                    = OutputField.ALL;
+    private volatile     DistributionFilter filter                    = DistributionFilter.NONE;
+    private final        FileWalker         walker                    = new FileWalker();
+    private final        ProbeCache         probeCache;
+    private final        ProbeResults       probeResults;
+    private final        Queue<CompletableFuture<Void>> pendingResults = new ConcurrentLinkedQueue<>();
+    private final        DirectoryCache     directoryCache;
+    private              ProbeScheduler     probeScheduler            = new ProbeScheduler();
+    private              int                probeConcurrency          = ProbeScheduler.DEFAULT_CONCURRENCY;
+    private              Duration           probeTimeout              = ProbeScheduler.DEFAULT_TIMEOUT;
+    private              ProbeProfile       probeProfile              = ProbeProfile.LIGHT;
+    private              boolean            probeShowSettings         = false;
+    private              int                timedOutProbes            = 0;
+    private              OperatingSystem    operatingSystem           = detectOperatingSystem();
+    private              Architecture       architecture              = detectArchitecture();
+    private              String             javaFile                  = OperatingSystem.WINDOWS == operatingSystem ? "java.exe" : "java";
+    private volatile     String             javaHome                  = "";
+    private              boolean            isAlpine                  = false;
+    private              boolean            probeCacheEnabled         = true;
 
 
     // ******************** Constructors **************************************
     public Finder() {
-        getJavaHome();
-        if (null == this.javaHome || this.javaHome.isEmpty()) {
-            this.javaHome = System.getProperty(Constants.JAVA_HOME_PROPERTY_KEY);
-        }
-        this.usedDistros = getUsedDistros();
+        this(new ProbeCache());
+    }
+    public Finder(final ProbeCache probeCache) {
+        this(probeCache, new DirectoryCache(), new ProbeResults(), new Usage());
+    }
+    private Finder(final ProbeCache probeCache, final DirectoryCache directoryCache, final ProbeResults probeResults, final Usage usage) {
+        if (null == probeCache) { throw new IllegalArgumentException("probeCache cannot be null"); }
+        this.probeCache     = probeCache;
+        this.directoryCache = directoryCache;
+        this.probeResults   = probeResults;
+        this.usage          = usage;
+        this.walker.setDirectoryCache(directoryCache);
     }
 
 
     // ******************** Methods *******************************************
     public Set<DistributionInfo> getDistributions(final List<String> searchPaths) {
-        Set<DistributionInfo> distros = new HashSet<>();
+        return getDistributions(searchPaths, ScanOptions.DEFAULT);
+    }
+    public Set<DistributionInfo> getDistributions(final List<String> searchPaths, final ScanOptions scanOptions) {
+        return getDistributions(searchPaths, scanOptions, null);
+    }
+    // The listener is called from the probe threads as soon as a distribution has been classified (aliases are added at the end of the scan)
+    // It must not wait for a scan of a copy of this finder, that scan might need a result of a probe that is queued behind the listener
+    public Set<DistributionInfo> getDistributions(final List<String> searchPaths, final ScanOptions scanOptions, final Consumer<DistributionInfo> listener) {
+        return getDistributions(searchPaths, scanOptions, OutputField.ALL, listener);
+    }
+    // Only the given fields will be filled, e.g. the running processes are not looked at if neither in_use nor used_by are requested
+    public Set<DistributionInfo> getDistributions(final List<String> searchPaths, final ScanOptions scanOptions, final Set<OutputField> fields, final Consumer<DistributionInfo> listener) {
+        return getDistributions(searchPaths, scanOptions, fields, DistributionFilter.NONE, listener);
+    }
+    // Only distributions that match the filter are returned, JDKs that can't match (by release file or executable header) are not probed at all
+    public Set<DistributionInfo> getDistributions(final List<String> searchPaths, final ScanOptions scanOptions, final Set<OutputField> fields, final DistributionFilter filter, final Consumer<DistributionInfo> listener) {
+        Set<DistributionInfo> distros = ConcurrentHashMap.newKeySet();
         if (null == searchPaths || searchPaths.isEmpty()) { return distros; }
+        final ScanOptions options = null == scanOptions ? ScanOptions.DEFAULT : scanOptions;
+        this.fields = null == fields ? OutputField.ALL : fields;
+        this.filter = null == filter ? DistributionFilter.NONE : filter;
 
-        if (service.isShutdown()) {
-            service = Executors.newSingleThreadExecutor();
+        if (probeScheduler.isShutdown()) {
+            probeScheduler = new ProbeScheduler(probeConcurrency, probeTimeout);
         }
+        if (OutputField.needsUsage(this.fields)) { detectUsage(); }
 
-        searchPaths.forEach(searchPath -> {
-            final Path       path      = Paths.get(searchPath);
-            final List<Path> javaFiles = findFileByName(path, javaFile);
-            javaFiles.stream().forEach(java -> checkForDistribution(java.toString(), distros));
-        });
-        service.shutdown();
-        try {
-            service.awaitTermination(5000, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        final Map<String, Set<String>> aliases = checkForDistributions(searchPaths, options, collectorOf(distros, this.filter, listener), false);
+        if (isDirectoryCacheEnabled()) { directoryCache.save(); }
+        awaitProbes();
+        if (this.fields.contains(OutputField.ALIASES)) { addAliases(distros, aliases); }
+        if (probeCacheEnabled) { probeCache.save(); }
         return distros;
     }
 
     public Set<DistributionInfo> getActiveDistributions(final List<String> searchPaths) {
-        Set<DistributionInfo> distros = new HashSet<>();
+        Set<DistributionInfo> distros = ConcurrentHashMap.newKeySet();
         if (null == searchPaths || searchPaths.isEmpty()) { return distros; }
+        this.fields = OutputField.ALL;
+        this.filter = DistributionFilter.NONE;
 
-        if (service.isShutdown()) {
-            service = Executors.newSingleThreadExecutor();
+        if (probeScheduler.isShutdown()) {
+            probeScheduler = new ProbeScheduler(probeConcurrency, probeTimeout);
         }
+        detectUsage();
 
-        searchPaths.forEach(searchPath -> {
-            final Path       path      = Paths.get(searchPath);
-            final List<Path> javaFiles = findFileByName(path, javaFile);
-            javaFiles.stream().forEach(java -> checkForActiveDistribution(java.toString(), distros));
-        });
-        service.shutdown();
-        try {
-            service.awaitTermination(5000, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        final Map<String, Set<String>> aliases = checkForDistributions(searchPaths, ScanOptions.DEFAULT, collectorOf(distros, DistributionFilter.NONE, null), true);
+        awaitProbes();
+        addAliases(distros, aliases);
+        if (probeCacheEnabled) { probeCache.save(); }
         return distros;
     }
 
-    public OperatingSystem getOperatingSystem() { return operatingSystem; }
+    // Returns the newest JDK that matches the spec (see DistributionFilter.fromSpec()), JDKs for other architectures than the current one are ignored
+    // unless the spec asks for them. The well known roots are checked one after the other and the first root that contains a match wins. Within a root
+    // a warm probe cache answers without walking any folder, JDKs cached by other scans outside of the well known roots are never returned.
+    public Optional<DistributionInfo> resolve(final String spec) throws IllegalArgumentException {
+        final DistributionFilter specFilter  = DistributionFilter.fromSpec(spec);
+        final DistributionFilter filter      = specFilter.architecture().isEmpty() ? specFilter.withArchitecture(architecture.name()) : specFilter;
+        final List<String>       executables = probeCacheEnabled ? probeCache.getExecutables() : List.of();
+
+        for (String root : getWellKnownRoots()) {
+            final Path rootPath = Paths.get(root);
+            if (!Files.isDirectory(rootPath)) { continue; }
+            final List<DistributionInfo> cached = new ArrayList<>();
+            for (String java : executables) {
+                if (Paths.get(java).startsWith(rootPath)) { probeCache.get(java).filter(filter::matches).ifPresent(cached::add); }
+            }
+            final Optional<DistributionInfo> newestCached = newest(cached);
+            if (newestCached.isPresent()) { return newestCached; }
 
-    public Architecture getArchitecture() { return architecture; }
+            final Optional<DistributionInfo> newest = newest(getDistributions(List.of(root), RESOLVE_SCAN_OPTIONS, RESOLVE_FIELDS, filter, null));
+            if (newest.isPresent()) { return newest; }
+        }
+        return Optional.empty();
+    }
 
-    public static final OperatingSystem detectOperatingSystem() {
-        final String os = Constants.OS_NAME_PROPERTY.toLowerCase();
-        if (os.indexOf("win") >= 0) {
-            return OperatingSystem.WINDOWS;
-        } else if (os.indexOf("mac") >= 0) {
-            return OperatingSystem.MACOS;
-        } else if (os.indexOf("nix") >= 0 || os.indexOf("nux") >= 0) {
-            try {
-                final ProcessBuilder processBuilder = new ProcessBuilder(DETECT_ALPINE_CMDS);
-                final Process        process        = processBuilder.start();
-                final String         result         = new BufferedReader(new InputStreamReader(process.getInputStream())).lines().collect(Collectors.joining("\n"));
-                return null == result ? OperatingSystem.LINUX : result.equals("1") ? OperatingSystem.ALPINE_LINUX : OperatingSystem.LINUX;
-            } catch (IOException e) {
-                e.printStackTrace();
-                return OperatingSystem.LINUX;
+    // Places where JDKs are usually installed, most specific first
+    public List<String> getWellKnownRoots() {
+        final String      userHome = System.getProperty("user.home");
+        final Set<String> roots    = new LinkedHashSet<>();
+        final String      javaHome = System.getenv("JAVA_HOME");
+        if (null != javaHome && !javaHome.isBlank()) { roots.add(javaHome); }
+        roots.add(Paths.get(userHome, ".sdkman", "candidates", "java").toString());
+        roots.add(Paths.get(userHome, ".jdks").toString());
+        roots.add(Paths.get(userHome, ".asdf", "installs", "java").toString());
+        roots.add(Paths.get(userHome, ".gradle", "jdks").toString());
+        switch (operatingSystem) {
+            case WINDOWS -> {
+                roots.add(WINDOWS_JAVA_INSTALL_PATH);
+                roots.add("C:\\Program Files\\Eclipse Adoptium\\");
+                roots.add("C:\\Program Files\\Zulu\\");
+                roots.add("C:\\Program Files\\Amazon Corretto\\");
+                roots.add("C:\\Program Files\\Microsoft\\");
+            }
+            case MACOS -> {
+                roots.add(Paths.get(userHome, "Library", "Java", "JavaVirtualMachines").toString());
+                roots.add("/Library/Java/JavaVirtualMachines");
+                roots.add(MACOS_JAVA_INSTALL_PATH);
+            }
+            default -> {
+                roots.add(LINUX_JAVA_INSTALL_PATH);
+                roots.add("/usr/java");
+                roots.add("/opt/java");
+                roots.add("/opt");
             }
-        } else if (os.indexOf("sunos") >= 0) {
-            return OperatingSystem.SOLARIS;
-        } else {
-            return OperatingSystem.NOT_FOUND;
         }
+        return new ArrayList<>(roots);
     }
 
-    public static final Architecture detectArchitecture() {
-        final OperatingSystem operatingSystem = detectOperatingSystem();
-        try {
-            final ProcessBuilder processBuilder = OperatingSystem.WINDOWS == operatingSystem ? new ProcessBuilder(WIN_DETECT_ARCH_CMDS) : new ProcessBuilder(UX_DETECT_ARCH_CMDS);
-            final Process        process        = processBuilder.start();
-            final String         result         = new BufferedReader(new InputStreamReader(process.getInputStream())).lines().collect(Collectors.joining("\n"));
-            switch(operatingSystem) {
-                case WINDOWS -> {
-                    ARCHITECTURE_MATCHER.reset(result);
-                    final List<MatchResult> results     = ARCHITECTURE_MATCHER.results().collect(Collectors.toList());
-                    final int               noOfResults = results.size();
-                    if (noOfResults > 0) {
-                        final MatchResult   res = results.get(0);
-                        return Architecture.fromText(res.group(2));
-                    } else {
-                        return Architecture.NOT_FOUND;
-                    }
-                }
-                case MACOS -> {
-                    return Architecture.fromText(result);
-                }
-                case LINUX -> {
-                    return Architecture.fromText(result);
-                }
-            }
+    private static Optional<DistributionInfo> newest(final Collection<DistributionInfo> distros) {
+        return distros.stream().max(Comparator.comparing((DistributionInfo distro) -> VersionNumber.fromText(distro.version())).thenComparing(DistributionInfo::location, Comparator.reverseOrder()));
+    }
 
-            // If not found yet try via system property
-            final String arch = Constants.OS_ARCH_PROPERTY.toLowerCase();
-            if (arch.contains("sparc")) return Architecture.SPARC;
-            if (arch.contains("amd64") || arch.contains("86_64")) return Architecture.AMD64;
-            if (arch.contains("86")) return Architecture.X86;
-            if (arch.contains("s390x")) return Architecture.S390X;
-            if (arch.contains("ppc64")) return Architecture.PPC64;
-            if (arch.contains("arm") && arch.contains("64")) return Architecture.AARCH64;
-            if (arch.contains("arm")) return Architecture.ARM;
-            if (arch.contains("aarch64")) return Architecture.AARCH64;
-            return Architecture.NOT_FOUND;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return Architecture.NOT_FOUND;
-        }
+    public long getVisitedEntries() { return walker.getVisitedEntries(); }
+
+    public int getProbeConcurrency() { return probeConcurrency; }
+    public void setProbeConcurrency(final int probeConcurrency) {
+        probeScheduler.setConcurrency(probeConcurrency);
+        this.probeConcurrency = probeConcurrency;
     }
 
-    public static final SysInfo getSysInfo() {
-        final OperatingSystem operatingSystem = detectOperatingSystem();
-        try {
-            final String              hostname       = getHostname();
-            final Map<String, String> envVariables   = System.getenv();
-            final ProcessBuilder      processBuilder = OperatingSystem.WINDOWS == operatingSystem ? new ProcessBuilder(WIN_DETECT_ARCH_CMDS) : new ProcessBuilder(UX_DETECT_ARCH_CMDS);
-            final Process             process        = processBuilder.start();
-            final String              result         = new BufferedReader(new InputStreamReader(process.getInputStream())).lines().collect(Collectors.joining("\n"));
+    public Duration getProbeTimeout() { return probeTimeout; }
+    public void setProbeTimeout(final Duration probeTimeout) {
+        probeScheduler.setTimeout(probeTimeout);
+        this.probeTimeout = probeTimeout;
+    }
 
-            switch(operatingSystem) {
-                case WINDOWS -> {
-                    ARCHITECTURE_MATCHER.reset(result);
-                    final List<MatchResult> results     = ARCHITECTURE_MATCHER.results().collect(Collectors.toList());
-                    final int               noOfResults = results.size();
-                    if (noOfResults > 0) {
-                        final MatchResult   res = results.get(0);
-                        return new SysInfo(operatingSystem, Architecture.fromText(res.group(2)), OperatingMode.NATIVE, hostname, envVariables);
-                    } else {
-                        return new SysInfo(operatingSystem, Architecture.NOT_FOUND, OperatingMode.NOT_FOUND, hostname, envVariables);
-                    }
-                }
-                case MACOS   -> {
-                    Architecture architecture = Architecture.fromText(result);
-                    final ProcessBuilder processBuilder1 = new ProcessBuilder(MAC_DETECT_ROSETTA2_CMDS);
-                    final Process        process1        = processBuilder1.start();
-                    final String         result1         = new BufferedReader(new InputStreamReader(process1.getInputStream())).lines().collect(Collectors.joining("\n"));
-                    return new SysInfo(operatingSystem, architecture, result1.equals("1") ? OperatingMode.EMULATED : OperatingMode.NATIVE, hostname, envVariables);
-                }
-                case LINUX   -> {
-                    return new SysInfo(operatingSystem, Architecture.fromText(result), OperatingMode.NATIVE, hostname, envVariables);
-                }
-            }
+    public ProbeProfile getProbeProfile() { return probeProfile; }
+    public void setProbeProfile(final ProbeProfile probeProfile) { this.probeProfile = null == probeProfile || ProbeProfile.NOT_FOUND == probeProfile ? ProbeProfile.LIGHT : probeProfile; }
 
-            // If not found yet try via system property
-            final String arch = Constants.OS_ARCH_PROPERTY;
-            if (arch.contains("sparc"))                           { return new SysInfo(operatingSystem, Architecture.SPARC, OperatingMode.NATIVE, hostname, envVariables); }
-            if (arch.contains("amd64") || arch.contains("86_64")) { return new SysInfo(operatingSystem, Architecture.AMD64, OperatingMode.NATIVE, hostname, envVariables); }
-            if (arch.contains("86"))                              { return new SysInfo(operatingSystem, Architecture.X86, OperatingMode.NATIVE, hostname, envVariables); }
-            if (arch.contains("s390x"))                           { return new SysInfo(operatingSystem, Architecture.S390X, OperatingMode.NATIVE, hostname, envVariables); }
-            if (arch.contains("ppc64"))                           { return new SysInfo(operatingSystem, Architecture.PPC64, OperatingMode.NATIVE, hostname, envVariables); }
-            if (arch.contains("arm") && arch.contains("64"))      { return new SysInfo(operatingSystem, Architecture.AARCH64, OperatingMode.NATIVE, hostname, envVariables); }
-            if (arch.contains("arm"))                             { return new SysInfo(operatingSystem, Architecture.ARM, OperatingMode.NATIVE, hostname, envVariables); }
-            if (arch.contains("aarch64"))                         { return new SysInfo(operatingSystem, Architecture.AARCH64, OperatingMode.NATIVE, hostname, envVariables); }
-            return new SysInfo(operatingSystem, Architecture.NOT_FOUND, OperatingMode.NATIVE, hostname, envVariables);
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new SysInfo(operatingSystem, Architecture.NOT_FOUND, OperatingMode.NATIVE, "-", new HashMap<>());
-        }
+    // If enabled the probes also print their system properties (java.vendor, os.arch...) which are used for the classification
+    public boolean isProbeShowSettings() { return probeShowSettings; }
+    public void setProbeShowSettings(final boolean probeShowSettings) { this.probeShowSettings = probeShowSettings; }
+
+    // Number of java -version probes that have been killed because they exceeded the probe timeout
+    public int getTimedOutProbes() { return timedOutProbes; }
+
+    public boolean isProbeCacheEnabled() { return probeCacheEnabled; }
+    public void setProbeCacheEnabled(final boolean probeCacheEnabled) { this.probeCacheEnabled = probeCacheEnabled; }
+
+    public ProbeCache getProbeCache() { return probeCache; }
+
+    public ProbeResults getProbeResults() { return probeResults; }
+
+    // A finder with the same settings that shares the caches, the probe results and the running processes with this one, both can scan at the same time
+    public Finder copy() {
+        final Finder finder = new Finder(probeCache, directoryCache, probeResults, usage);
+        finder.setProbeCacheEnabled(probeCacheEnabled);
+        finder.setDirectoryCacheEnabled(isDirectoryCacheEnabled());
+        finder.setProbeConcurrency(probeConcurrency);
+        finder.setProbeTimeout(probeTimeout);
+        finder.setProbeProfile(probeProfile);
+        finder.setProbeShowSettings(probeShowSettings);
+        return finder;
     }
 
-    public static final String getHostname() {
-        final OperatingSystem operatingSystem = detectOperatingSystem();
-        InetAddress ip;
-        String      hostname;
-        try {
-            ip       = InetAddress.getLocalHost();
-            hostname = ip.getHostName();
-        } catch (UnknownHostException e) {
-            hostname = System.getenv("HOSTNAME");
-        }
-        if (null == hostname || hostname.isEmpty()) {
-            try {
-                final ProcessBuilder processBuilder = OperatingSystem.WINDOWS == operatingSystem ? new ProcessBuilder(WIN_DETECT_HOSTNAME_CMDS) : new ProcessBuilder(UX_DETECT_HOSTNAME_CMDS);
-                final Process        process        = processBuilder.start();
-                final String         result         = new BufferedReader(new InputStreamReader(process.getInputStream())).lines().collect(Collectors.joining("\n"));
-                hostname = result;
-            } catch (IOException e) {
-                hostname = "-";
-            }
-        }
-        return hostname;
+    public boolean isDirectoryCacheEnabled() { return null != walker.getDirectoryCache(); }
+    public void setDirectoryCacheEnabled(final boolean directoryCacheEnabled) { walker.setDirectoryCache(directoryCacheEnabled ? directoryCache : null); }
+
+    public DirectoryCache getDirectoryCache() { return directoryCache; }
+
+    public long getSkippedDirs() { return walker.getSkippedDirs(); }
+
+    public OperatingSystem getOperatingSystem() { return operatingSystem; }
+
+    public Architecture getArchitecture() { return architecture; }
+
+    // Operating system, architecture and hostname are determined once per JVM and without starting processes or asking the DNS
+    public static final OperatingSystem detectOperatingSystem() { return Platform.OPERATING_SYSTEM; }
+
+    public static final Architecture detectArchitecture() { return Platform.ARCHITECTURE; }
+
+    public static final SysInfo getSysInfo() {
+        return new SysInfo(Platform.OPERATING_SYSTEM, Platform.ARCHITECTURE, Platform.operatingMode(), getHostname(), System.getenv());
     }
 
+    public static final String getHostname() { return Platform.hostname(); }
+
     public static final Map<String, String> getEnvironmentVariables() {
         return System.getenv();
     }
@@ -302,6 +313,23 @@ public class Finder {
         }
     }
 
+    // JAVA_HOME and the running java processes are only needed for in_use and used_by, they are looked up once for a finder and its copies
+    private void detectUsage() {
+        synchronized (usage) {
+            if (!usage.detected) {
+                getJavaHome();
+                if (null == this.javaHome || this.javaHome.isEmpty()) {
+                    this.javaHome = System.getProperty(Constants.JAVA_HOME_PROPERTY_KEY);
+                }
+                usage.javaHome    = this.javaHome;
+                usage.usedDistros = getUsedDistros();
+                usage.detected    = true;
+            }
+            this.javaHome    = usage.javaHome;
+            this.usedDistros = usage.usedDistros;
+        }
+    }
+
     public List<ProcessInfo> getUsedDistros() {
         final long              currentPid  = ProcessHandle.current().pid();
         final List<ProcessInfo> usedDistros = ProcessHandle.allProcesses()
@@ -314,858 +342,477 @@ public class Finder {
         return usedDistros;
     }
 
-    private List<Path> findFileByName(final Path path, final String filename) {
-        final List<Path> result = new ArrayList<>();
-        try {
-            Files.walkFileTree(path, new HashSet<>(Arrays.asList(FileVisitOption.FOLLOW_LINKS)), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
-                @Override public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
-                    final String name = file.getFileName().toString().toLowerCase();
-                    if (filename.equals(name) && !Files.isSymbolicLink(file.toAbsolutePath())) { result.add(file); }
-                    return FileVisitResult.CONTINUE;
-                }
-                @Override public FileVisitResult visitFileFailed(final Path file, final IOException e) throws IOException { return FileVisitResult.SKIP_SUBTREE; }
-                @Override public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
-                    return Files.isSymbolicLink(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
-                }
-            });
-        } catch (IOException e) {
-            System.out.println(e);
-            return result;
-        }
-        return result;
+    // The walker hands every java executable it finds to a bounded queue that is drained by virtual threads while the walk is still running.
+    // Each physical java executable (identified by its file key) is probed once, the homes of other paths to it are returned as aliases.
+    private static Consumer<DistributionInfo> collectorOf(final Set<DistributionInfo> distros, final DistributionFilter filter, final Consumer<DistributionInfo> listener) {
+        return distro -> {
+            if (filter.matches(distro) && distros.add(distro) && null != listener) { listener.accept(distro); }
+        };
     }
 
-    private void checkForDistribution(final String java, final Set<DistributionInfo> distros) {
-        Instant       now    = Instant.now();
-        AtomicBoolean inUse  = new AtomicBoolean(false);
-        List<String>  usedBy = new ArrayList<>();
-
-        try {
-            List<String> commands = new ArrayList<>();
-            commands.add(java);
-            commands.add("-version");
-
-            final String fileSeparator = File.separator;
-            final String binFolder     = new StringBuilder(fileSeparator).append("bin").append(fileSeparator).append(".*").toString();
-
-            ProcessBuilder builder  = new ProcessBuilder(commands).redirectErrorStream(true);
-            Process process;
+    private Map<String, Set<String>> checkForDistributions(final List<String> searchPaths, final ScanOptions options, final Consumer<DistributionInfo> distros, final boolean active) {
+        final BlockingQueue<Path>      candidates     = new ArrayBlockingQueue<>(CANDIDATE_QUEUE_CAPACITY);
+        final Map<Object, String>      probedBinaries = new ConcurrentHashMap<>();
+        final Map<String, Set<String>> aliases        = new ConcurrentHashMap<>();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0 ; i < CANDIDATE_WORKERS ; i++) {
+                workers.submit(() -> {
+                    try {
+                        Path java;
+                        while ((java = candidates.take()) != END_OF_CANDIDATES) {
+                            final Object fileKey = getFileKey(java);
+                            final String probed  = null == fileKey ? null : probedBinaries.putIfAbsent(fileKey, java.toString());
+                            if (null == probed) {
+                                checkForDistribution(java.toString(), distros, active);
+                            } else if (!probed.equals(java.toString())) {
+                                aliases.computeIfAbsent(getParentPath(probed), location -> ConcurrentHashMap.newKeySet()).add(getParentPath(java.toString()));
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
             try {
-                process = builder.start();
-            } catch (Exception e) {
-                //System.out.println("Not allowed to check: " + java);
-                return;
+                searchPaths.forEach(searchPath -> walker.walk(Paths.get(searchPath), javaFile, options, java -> putCandidate(candidates, java)));
+            } finally {
+                for (int i = 0 ; i < CANDIDATE_WORKERS ; i++) { putCandidate(candidates, END_OF_CANDIDATES); }
             }
-            Streamer streamer = new Streamer(process.getInputStream(), d -> {
-                final String parentPath      = OperatingSystem.WINDOWS == this.operatingSystem ? java.replaceAll("bin\\\\java.exe", "") : java.replaceAll(binFolder, fileSeparator);
-                final File   releaseFile     = new File(parentPath + "release");
-                String[]     lines           = d.split("\\|");
-                String       name            = "Unknown build of OpenJDK";
-                Distribution distribution    = Distribution.NOT_FOUND;
-                String       apiString       = "";
-                String       operatingSystem = "";
-                String       architecture    = "";
-                String       feature         = "";
-                Boolean      fxBundled       = Boolean.FALSE;
-                //FPU          fpu              = FPU.UNKNOWN;
-
-                if (Files.isSymbolicLink(Path.of(parentPath))) { return; }
-
-                if (!this.javaHome.isEmpty() && !inUse.get() && parentPath.contains(javaHome)) {
-                    inUse.set(true);
-                }
-
-                final File jreLibExtFolder = new File(new StringBuilder(parentPath).append("jre").append(fileSeparator).append("lib").append(fileSeparator).append("ext").toString());
-                if (jreLibExtFolder.exists()) {
-                    fxBundled = Stream.of(jreLibExtFolder.listFiles()).filter(file -> !file.isDirectory()).map(File::getName).collect(Collectors.toSet()).stream().filter(filename -> filename.equalsIgnoreCase("jfxrt.jar")).count() > 0;
-                }
-                final File jmodsFolder = new File(new StringBuilder(parentPath).append("jmods").toString());
-                if (jmodsFolder.exists()) {
-                    fxBundled = Stream.of(jmodsFolder.listFiles()).filter(file -> !file.isDirectory()).map(File::getName).collect(Collectors.toSet()).stream().filter(filename -> filename.startsWith("javafx")).count() > 0;
-                }
-
-                VersionNumber version    = null;
-                VersionNumber jdkVersion = null;
-                BuildScope    buildScope = BuildScope.BUILD_OF_OPEN_JDK;
-
-                String line1         = lines[0];
-                String line2         = lines[1];
-                String withoutPrefix = line1;
-                if (line1.startsWith("openjdk")) {
-                    withoutPrefix = line1.replaceFirst("openjdk version", "");
-                } else if (line1.startsWith("java")) {
-                    withoutPrefix = line1.replaceFirst("java version", "");
-                    // Find new GraalVM build (former enterprise edition)
-                    if (line2.contains("GraalVM")) {
-                        name         = "GraalVM";
-                        apiString    = "graalvm";
-                        buildScope   = BuildScope.BUILD_OF_GRAALVM;
-                        distribution = Distribution.GRAALVM;
-                    } else {
-                        name       = "Oracle";
-                        apiString  = "oracle";
-                    }
-                }
+        }
+        return aliases;
+    }
 
-                // Find new GraalVM community builds
-                if (!apiString.equals("graalvm") && line2.contains("jvmci")) {
-                    VersionNumber newGraalVMBuild = VersionNumber.fromText("23.0-b12");
-                    VersionNumber graalvmBuildFound = VersionNumber.fromText(line2.substring(line2.indexOf("jvmci"), line2.length() - 1).replace("jvmci-", ""));
-                    if (graalvmBuildFound.compareTo(newGraalVMBuild) >= 0) {
-                        name         = "GraalVM Community";
-                        apiString    = "graalvm_community";
-                        buildScope   = BuildScope.BUILD_OF_GRAALVM;
-                        distribution = Distribution.GRAALVM_COMMUNITY;
-                    }
-                }
+    private static Object getFileKey(final Path java) {
+        try {
+            return Files.readAttributes(java, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
 
-                if (line2.contains("Zulu")) {
-                    name         = "Zulu";
-                    apiString    = "zulu";
-                    distribution = Distribution.ZULU;
-                    ZULU_BUILD_MATCHER.reset(line2);
-                    final List<MatchResult> results = ZULU_BUILD_MATCHER.results().collect(Collectors.toList());
-                    if (!results.isEmpty()) {
-                        MatchResult result = results.get(0);
-                        version = VersionNumber.fromText(result.group(2));
-                    }
-                } else if (line2.contains("Zing") || line2.contains("Prime")) {
-                    name         = "ZuluPrime";
-                    apiString    = "zulu_prime";
-                    distribution = Distribution.ZULU_PRIME;
-                    final List<MatchResult> results = ZULU_BUILD_MATCHER.results().collect(Collectors.toList());
-                    if (!results.isEmpty()) {
-                        MatchResult result = results.get(0);
-                        version = VersionNumber.fromText(result.group(2));
-                    }
-                } else if (line2.contains("Semeru")) {
-                    if (line2.contains("Certified")) {
-                        name         = "Semeru certified";
-                        apiString    = "semeru_certified";
-                        distribution = Distribution.SEMERU_CERTIFIED;
-                    } else {
-                        name         = "Semeru";
-                        apiString    = "semeru";
-                        distribution = Distribution.SEMERU;
+    // Adds the hard linked or bind mounted copies found by the walker and the symbolic links next to each JDK home (e.g. /usr/lib/jvm/default-java)
+    private void addAliases(final Set<DistributionInfo> distros, final Map<String, Set<String>> aliases) {
+        final Map<Path, List<Path>> symbolicLinks = new HashMap<>();
+        for (DistributionInfo distro : distros) {
+            final Set<String> found = new TreeSet<>(aliases.getOrDefault(distro.location(), Set.of()));
+            try {
+                final Path home     = Paths.get(distro.location());
+                final Path realHome = home.toRealPath();
+                final Path parent   = home.getParent();
+                if (null != parent) {
+                    for (Path link : symbolicLinks.computeIfAbsent(parent, Finder::getSymbolicLinks)) {
+                        try {
+                            if (link.toRealPath().equals(realHome)) { found.add(link + File.separator); }
+                        } catch (IOException e) {
+                            // Dangling link
+                        }
                     }
-                } else if (line2.contains("Tencent")) {
-                    name         = "Kona";
-                    apiString    = "kona";
-                    distribution = Distribution.KONA;
-                } else if (line2.contains("Bisheng")) {
-                    name         = "Bishenq";
-                    apiString    = "bisheng";
-                    distribution = Distribution.BISHENG;
-                } else if (line2.startsWith("Java(TM) SE")) {
-                    name         = "Oracle";
-                    apiString    = "oracle";
-                    distribution = Distribution.ORACLE;
                 }
+            } catch (IOException | RuntimeException e) {
+                // Location not accessible anymore, keep the aliases found by the walker
+            }
+            found.remove(distro.location());
+            distro.aliases().addAll(found);
+        }
+    }
 
-                if (null == version) {
-                    final String versionNumberText = withoutPrefix.substring(withoutPrefix.indexOf("\"") + 1, withoutPrefix.lastIndexOf("\""));
-                    final Semver semver            = Semver.fromText(versionNumberText).getSemver1();
-                    version = VersionNumber.fromText(semver.toString(true));
-                }
-                VersionNumber graalVersion = version;
-
-                releaseProperties.clear();
-                if (releaseFile.exists()) {
-                    try (FileInputStream propFile = new FileInputStream(releaseFile)) {
-                        releaseProperties.load(propFile);
-                    } catch (IOException ex) {
-                        System.out.println("Error reading release properties file. " + ex);
-                    }
-                    if (!releaseProperties.isEmpty()) {
-                        if (releaseProperties.containsKey("IMPLEMENTOR") && name.equals(Constants.UNKNOWN_BUILD_OF_OPENJDK)) {
-                            switch (releaseProperties.getProperty("IMPLEMENTOR").replaceAll("\"", "")) {
-                                case "AdoptOpenJDK" -> { name         = "Adopt OpenJDK";
-                                                         apiString    = "aoj";
-                                                         distribution = Distribution.AOJ;
-                                }
-                                case "Alibaba" -> { name         = "Dragonwell";
-                                                    apiString    = "dragonwell";
-                                                    distribution = Distribution.DRAGONWELL;
-                                }
-                                case "Amazon.com Inc." -> { name         = "Corretto";
-                                                            apiString    = "corretto";
-                                                            distribution = Distribution.CORRETTO;
-                                }
-                                case "Azul Systems, Inc." -> {
-                                    if (releaseProperties.containsKey("IMPLEMENTOR_VERSION")) {
-                                        final String implementorVersion = releaseProperties.getProperty("IMPLEMENTOR_VERSION");
-                                        if (implementorVersion.startsWith("Zulu")) {
-                                            name         = "Zulu";
-                                            apiString    = "zulu";
-                                            distribution = Distribution.ZULU;
-                                        } else if (implementorVersion.startsWith("Zing") || implementorVersion.startsWith("Prime")) {
-                                            name         = "ZuluPrime";
-                                            apiString    = "zulu_prime";
-                                            distribution = Distribution.ZULU_PRIME;
-                                        }
-                                    }
-                                }
-                                case "mandrel" -> { name         = "Mandrel";
-                                                    apiString    = "mandrel";
-                                                    distribution = Distribution.MANDREL;
-                                }
-                                case "Microsoft" -> { name         = "Microsoft";
-                                                      apiString    = "microsoft";
-                                                      distribution = Distribution.MICROSOFT;
-                                }
-                                case "ojdkbuild" -> { name         = "OJDK Build";
-                                                      apiString    = "ojdk_build";
-                                                      distribution = Distribution.OJDK_BUILD;
-                                }
-                                case "Oracle Corporation" -> { name         = "Oracle OpenJDK";
-                                                               apiString    = "oracle_openjdk";
-                                                               distribution = Distribution.ORACLE_OPEN_JDK;
-                                }
-                                case "Red Hat, Inc." -> { name         = "Red Hat";
-                                                          apiString    = "redhat";
-                                                          distribution = Distribution.RED_HAT;
-                                }
-                                case "SAP SE" -> { name         = "SAP Machine";
-                                                   apiString    = "sap_machine";
-                                                   distribution = Distribution.SAP_MACHINE;
-                                }
-                                case "OpenLogic" -> { name         = "OpenLogic";
-                                                      apiString    = "openlogic";
-                                                      distribution = Distribution.OPEN_LOGIC;
-                                }
-                                case "JetBrains s.r.o." -> { name         = "JetBrains";
-                                                             apiString    = "jetbrains";
-                                                             distribution = Distribution.JETBRAINS;
-                                }
-                                case "Eclipse Foundation" -> { name         = "Temurin";
-                                                               apiString    = "temurin";
-                                                               distribution = Distribution.TEMURIN;
-                                }
-                                case "Tencent" -> { name         = "Kona";
-                                                    apiString    = "kona";
-                                                    distribution = Distribution.KONA;
-                                }
-                                case "Bisheng" -> { name         = "Bisheng";
-                                                    apiString    = "bisheng";
-                                                    distribution = Distribution.BISHENG;
-                                }
-                                case "Debian" -> { name         = "Debian";
-                                                   apiString    = "debian";
-                                                   distribution = Distribution.DEBIAN;
-                                }
-                                case "Ubuntu" -> { name         = "Ubuntu";
-                                                   apiString    = "ubuntu";
-                                                   distribution = Distribution.UBUNTU;
-                                }
-                                case "N/A" -> { }/* Unknown */
+    private static List<Path> getSymbolicLinks(final Path folder) {
+        try (Stream<Path> entries = Files.list(folder)) {
+            return entries.filter(Files::isSymbolicLink).toList();
+        } catch (IOException | RuntimeException e) {
+            return List.of();
+        }
+    }
 
-                            }
-                        }
-                        if (releaseProperties.containsKey("BUILD_TYPE")) {
-                            switch (releaseProperties.getProperty("BUILD_TYPE").replaceAll("\"", "")) {
-                                case "commercial" -> {
-                                    name         = "Oracle";
-                                    apiString    = "oracle";
-                                    distribution = Distribution.ORACLE;
-                                }
-                            }
-                        }
-                        if (releaseProperties.containsKey("OS_ARCH")) {
-                            architecture = releaseProperties.getProperty("OS_ARCH").toLowerCase().replaceAll("\"", "");
-                        }
-                        if (releaseProperties.containsKey("JVM_VARIANT")) {
-                            if (name == "Adopt OpenJDK") {
-                                String jvmVariant = releaseProperties.getProperty("JVM_VARIANT").toLowerCase().replaceAll("\"", "");
-                                if (jvmVariant.equals("dcevm")) {
-                                    name         = "Trava OpenJDK";
-                                    apiString    = "trava";
-                                    distribution = Distribution.TRAVA;
-                                } else if (jvmVariant.equals("openj9")) {
-                                    name         = "Adopt OpenJDK J9";
-                                    apiString    = "aoj_openj9";
-                                    distribution = Distribution.AOJ_OPENJ9;
-                                }
-                            }
-                        }
-                        if (releaseProperties.containsKey("OS_NAME")) {
-                            switch (releaseProperties.getProperty("OS_NAME").toLowerCase().replaceAll("\"", "")) {
-                                case "darwin" -> operatingSystem = "macos";
-                                case "linux" -> operatingSystem = "linux";
-                                case "windows" -> operatingSystem = "windows";
-                            }
-                        }
-                        if (releaseProperties.containsKey("MODULES") && !fxBundled) {
-                            fxBundled = (releaseProperties.getProperty("MODULES").contains("javafx"));
-                        }
-                    /*
-                    if (releaseProperties.containsKey("SUN_ARCH_ABI")) {
-                        String abi = releaseProperties.get("SUN_ARCH_ABI").toString();
-                        switch (abi) {
-                            case "gnueabi"   -> fpu = FPU.SOFT_FLOAT;
-                            case "gnueabihf" -> fpu = FPU.HARD_FLOAT;
-                        }
-                    }
-                    */
-                    }
+    // The walker runs in a fork join pool, which can only start a compensating thread if it knows that a task is blocked
+    private static void putCandidate(final BlockingQueue<Path> candidates, final Path java) {
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override public boolean block() throws InterruptedException {
+                    candidates.put(java);
+                    return true;
                 }
 
-                if (lines.length > 2) {
-                    String line3 = lines[2].toLowerCase();
-                    for (String feat : Constants.FEATURES) {
-                        if (line3.contains(feat)) {
-                            feature = feat;
-                            break;
-                        }
-                    }
+                @Override public boolean isReleasable() { return candidates.offer(java); }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
+    private void checkForDistribution(final String java, final Consumer<DistributionInfo> distros, final boolean active) {
+        Path    claimedHome = null;
+        boolean submitted   = false;
+        try {
+            if (probeCacheEnabled) {
+                final Optional<DistributionInfo> cached = probeCache.get(java);
+                if (cached.isPresent()) {
+                    distros.accept(fromCache(java, cached.get(), active));
+                    return;
                 }
+            }
 
-                if (name.equalsIgnoreCase("Mandrel")) {
-                    buildScope = BuildScope.BUILD_OF_GRAALVM;
-                    if (releaseProperties.containsKey("JAVA_VERSION")) {
-                        final String javaVersion = releaseProperties.getProperty("JAVA_VERSION");
-                        if (null == jdkVersion) { jdkVersion = VersionNumber.fromText(javaVersion); }
+            // Broken files are dropped, binaries the host can't run (other os, cpu or libc) are classified from the release file only
+            final ExecutableHeader header = ExecutableHeader.read(Paths.get(java));
+            if (!header.isValid()) { return; }
+            final boolean runnable = header.canRunOn(operatingSystem, architecture);
+
+            final JdkHomeProbe probe = JdkHomeProbe.of(Paths.get(getParentPath(java)));
+            if (probe.symbolicLink()) { return; }
+            if (!filter.mayMatch(probe, header)) { return; }
+
+            // Each JDK is classified once per run, even if it is found by more than one scan (e.g. as running and as installed JDK).
+            // A scan that finds a JDK which is being classified by another scan takes over its result when it is there, the worker
+            // never blocks on it because the other scan might wait for this one (awaitProbes() waits for the pending results).
+            final Path                                   home       = ProbeResults.homeOf(Paths.get(java));
+            final CompletableFuture<ProbeResults.Result> classified = null == home ? null : probeResults.claim(home);
+            if (null != classified) {
+                pendingResults.add(classified.thenAccept(result -> {
+                    try {
+                        if (null != result.distributionInfo()) { distros.accept(fromProbeResult(java, result, probe, active)); }
+                    } catch (Exception e) {
+                        e.printStackTrace();
                     }
-                }
-
-                if (name.equals(Constants.UNKNOWN_BUILD_OF_OPENJDK) && lines.length > 2) {
-                    String line3      = lines[2].toLowerCase();
-                    File   readmeFile = new File(parentPath + "readme.txt");
-                    if (readmeFile.exists()) {
-                        try {
-                            List<String> readmeLines = Helper.readTextFileToList(readmeFile.getAbsolutePath());
-                            if (readmeLines.stream().filter(l -> l.toLowerCase().contains("liberica native image kit")).count() > 0) {
-                                name         = "Liberica Native";
-                                apiString    = "liberica_native";
-                                distribution = Distribution.LIBERICA_NATIVE;
-                                buildScope   = BuildScope.BUILD_OF_GRAALVM;
-
-                                GRAALVM_VERSION_MATCHER.reset(line3);
-                                final List<MatchResult> results = GRAALVM_VERSION_MATCHER.results().collect(Collectors.toList());
-                                if (!results.isEmpty()) {
-                                    MatchResult result = results.get(0);
-                                    version = VersionNumber.fromText(result.group(2));
-                                }
-                                if (releaseProperties.containsKey("JAVA_VERSION")) {
-                                    final String javaVersion = releaseProperties.getProperty("JAVA_VERSION");
-                                    if (null == jdkVersion) { jdkVersion = VersionNumber.fromText(javaVersion); }
-                                }
-                            } else if (readmeLines.stream().filter(l -> l.toLowerCase().contains("liberica")).count() > 0) {
-                                name         = "Liberica";
-                                apiString    = "liberica";
-                                distribution = Distribution.LIBERICA;
-                            }
-                        } catch (IOException e) {
+                }));
+                return;
+            }
+            claimedHome = home;
+
+            // Classify from the release file if it is unambiguous, then from lib/modules and only fall back to java -version if needed
+            DistributionInfo distributionFound = getVersionOutputFromRelease(probe, true).map(output -> classify(java, output, Map.of(), active, DetectionMethod.RELEASE_FILE, header, probe)).orElse(null);
+            if (isUnknown(distributionFound) && probe.hasModules()) {
+                final boolean is64Bit = Bitness.BIT_32 != header.bitness();
+                distributionFound = JImage.open(probe.getModulesFile()).flatMap(image -> image.getVersionOutput(is64Bit))
+                                          .map(output -> classify(java, output, Map.of(), active, DetectionMethod.JIMAGE, header, probe)).orElse(distributionFound);
+            }
+            if (isUnknown(distributionFound) && !runnable) {
+                distributionFound = getVersionOutputFromRelease(probe, false).map(output -> classify(java, output, Map.of(), active, DetectionMethod.RELEASE_FILE, header, probe)).orElse(distributionFound);
+            }
+            if (null != distributionFound && (!isUnknown(distributionFound) || !runnable)) {
+                addDistribution(java, home, distributionFound, distros);
+                return;
+            }
+            if (!runnable) { return; }
+
+            // Old JDKs and OpenJ9 reject some of the probe flags, so only pass the flags that the JDK knows and fall back to a plain java -version
+            final ReleaseFile  release      = probe.release();
+            final int          majorVersion = release.javaVersion().isEmpty() && probe.hasModules() ? 9 : ProbeProfile.majorVersionOf(release.javaVersion());
+            final boolean      openJ9       = release.jvmVariant().equalsIgnoreCase("openj9");
+            final List<String> command      = probeProfile.getCommand(java, majorVersion, openJ9, probeShowSettings);
+            probeScheduler.submit(command, d -> {
+                final String output = ProbeOutput.isRejected(d) && ProbeProfile.PLAIN != probeProfile ? probeScheduler.execute(ProbeProfile.PLAIN.getCommand(java, majorVersion, openJ9, false)).orElse(null) : d;
+                if (null == output) { return; }
+                final ProbeOutput probeOutput = ProbeOutput.parse(output);
+                addDistribution(java, home, classify(java, probeOutput.versionOutput(), probeOutput.properties(), active, DetectionMethod.JAVA_VERSION, header, probe), distros);
+            }, () -> probeResults.complete(home, null, true));
+            submitted = true;
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            // Scans that wait for this JDK get null if it could not be classified, complete() is a no-op if it has been classified already
+            if (!submitted) { probeResults.complete(claimedHome, null, true); }
+        }
+    }
 
-                        }
-                    } else {
-                        if (line3.contains("graalvm") && !apiString.equals("graalvm_community") && !apiString.equals("graalvm")) {
-                            name = "GraalVM CE";
-                            String distroPreFix = "graalvm_ce";
-                            if (releaseProperties.containsKey("IMPLEMENTOR")) {
-                                switch (releaseProperties.getProperty("IMPLEMENTOR").replaceAll("\"", "")) {
-                                    case "GraalVM Community" -> {
-                                        name         = "GraalVM CE";
-                                        distroPreFix = "graalvm_ce";
-                                        distribution = Distribution.GRAALVM_CE;
-                                    }
-                                    case "GraalVM Enterprise" -> {
-                                        name         = "GraalVM";
-                                        distroPreFix = "graalvm";
-                                        distribution = Distribution.GRAALVM_EE;
-                                    }
-                                }
-                            }
-                            apiString  = graalVersion.getMajorVersion().getAsInt() >= 8 ? distroPreFix + graalVersion.getMajorVersion().getAsInt() : "";
-                            buildScope = BuildScope.BUILD_OF_GRAALVM;
-
-                            GRAALVM_VERSION_MATCHER.reset(line3);
-                            final List<MatchResult> results = GRAALVM_VERSION_MATCHER.results().collect(Collectors.toList());
-                            if (!results.isEmpty()) {
-                                MatchResult result = results.get(0);
-                                version = VersionNumber.fromText(result.group(2));
-                            }
+    private static boolean isUnknown(final DistributionInfo distributionInfo) {
+        return null == distributionInfo || Distribution.NOT_FOUND == distributionInfo.distribution();
+    }
 
-                            if (releaseProperties.containsKey("VENDOR")) {
-                                final String vendor = releaseProperties.getProperty("VENDOR").toLowerCase().replaceAll("\"", "");
-                                if (vendor.equalsIgnoreCase("Gluon")) {
-                                    name         = "Gluon GraalVM CE";
-                                    apiString    = "gluon_graalvm";
-                                    distribution = Distribution.GLUON_GRAALVM;
-                                }
-                            }
-                            if (releaseProperties.containsKey("JAVA_VERSION")) {
-                                final String javaVersion = releaseProperties.getProperty("JAVA_VERSION");
-                                if (null == jdkVersion) { jdkVersion = VersionNumber.fromText(javaVersion); }
-                            }
-                        } else if (line3.contains("microsoft")) {
-                            name         = "Microsoft";
-                            apiString    = "microsoft";
-                            distribution = Distribution.MICROSOFT;
-                        } else if (line3.contains("corretto")) {
-                            name         = "Corretto";
-                            apiString    = "corretto";
-                            distribution = Distribution.CORRETTO;
-                        } else if (line3.contains("temurin")) {
-                            name         = "Temurin";
-                            apiString    = "temurin";
-                            distribution = Distribution.TEMURIN;
-                        }
-                    }
-                }
+    private void awaitProbes() {
+        probeScheduler.awaitCompletion();
+        timedOutProbes += probeScheduler.getTimedOutProbes();
+        CompletableFuture<Void> pendingResult;
+        while (null != (pendingResult = pendingResults.poll())) { pendingResult.join(); }
+    }
 
-                if (null == jdkVersion) { jdkVersion = version; }
+    private void addDistribution(final String java, final Path home, final DistributionInfo distributionFound, final Consumer<DistributionInfo> distros) {
+        probeResults.complete(home, distributionFound, probeCacheEnabled || fields.contains(OutputField.FX_BUNDLED));
+        if (null == distributionFound) { return; }
+        distros.accept(distributionFound);
+        if (probeCacheEnabled) { probeCache.put(java, distributionFound); }
+    }
 
-                if (architecture.isEmpty()) { architecture = this.architecture.name().toLowerCase(); }
+    // Classifies a distribution by the output of java -version (lines separated by |), the system properties of the probe (if any) and the facts gathered from its home folder
+    private DistributionInfo classify(final String java, final String versionOutput, final Map<String, String> properties, final boolean active, final DetectionMethod detectionMethod, final ExecutableHeader header, final JdkHomeProbe probe) {
+        final Instant       now     = Instant.now();
+        final AtomicBoolean inUse   = new AtomicBoolean(false);
+        final List<String>  usedBy  = new ArrayList<>();
+        final ReleaseFile   release = probe.release();
 
-                // Check if found distro is in use
-                for (ProcessInfo processInfo : usedDistros) {
-                    if (java.contains(processInfo.cmd())) {
-                        inUse.set(true);
-                        usedBy.add(processInfo.cmdLine());
-                        break;
-                    }
-                }
+        final String parentPath      = getParentPath(java);
+        final String[] lines           = versionOutput.split("\\|");
+        String         operatingSystem = "";
+        String         architecture    = "";
+        Boolean        fxBundled       = Boolean.FALSE;
+        //FPU            fpu             = FPU.UNKNOWN;
 
-                DistributionInfo distributionFound = new DistributionInfo(now, distribution, name, apiString, version.toString(OutputFormat.REDUCED_COMPRESSED, true, true), Integer.toString(jdkVersion.getMajorVersion().getAsInt()), operatingSystem, architecture, fxBundled, parentPath, feature, buildScope, inUse.get(), usedBy);
+        if (probe.symbolicLink()) { return null; }
 
-                distros.add(distributionFound);
-            });
-            service.submit(streamer);
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (!this.javaHome.isEmpty() && !inUse.get() && parentPath.contains(javaHome)) {
+            inUse.set(true);
         }
-    }
-
-    private void checkForActiveDistribution(final String java, final Set<DistributionInfo> distros) {
-        Instant       now    = Instant.now();
-        AtomicBoolean inUse  = new AtomicBoolean(false);
-        List<String>  usedBy = new ArrayList<>();
-
-        try {
-            List<String> commands = new ArrayList<>();
-            commands.add(java);
-            commands.add("-version");
 
-            final String fileSeparator = File.separator;
-            final String binFolder     = new StringBuilder(fileSeparator).append("bin").append(fileSeparator).append(".*").toString();
+        // JDK 9+ contain their modules in lib/modules, only rely on the jmods folder if the image can't be read.
+        // Reading the module list is skipped if fx_bundled is not requested, unless the result will end up in the probe cache.
+        if (probeCacheEnabled || fields.contains(OutputField.FX_BUNDLED)) { fxBundled = isFxBundled(probe); }
 
-            ProcessBuilder builder  = new ProcessBuilder(commands).redirectErrorStream(true);
-            Process process;
-            try {
-                process = builder.start();
-            } catch (Exception e) {
-                //System.out.println("Not allowed to check: " + java);
-                return;
+        final String line1         = lines[0];
+        String       withoutPrefix = line1;
+        if (line1.startsWith("openjdk")) {
+            withoutPrefix = line1.replaceFirst("openjdk version", "");
+        } else if (line1.startsWith("java")) {
+            withoutPrefix = line1.replaceFirst("java version", "");
+        }
+        final String        versionNumberText = withoutPrefix.substring(withoutPrefix.indexOf("\"") + 1, withoutPrefix.lastIndexOf("\""));
+        final VersionNumber javaVersion       = VersionNumber.fromText(Semver.fromText(versionNumberText).getSemver1().toString(true));
+
+        final Classification classification = Classifier.classify(lines, release, properties, () -> readReadme(probe));
+        final VersionNumber  version        = switch (classification.versionSource()) {
+            case ZULU_BUILD    -> findVersion(ZULU_BUILD_PATTERN, lines.length > 1 ? lines[1] : "").orElse(javaVersion);
+            case GRAALVM_BUILD -> findVersion(GRAALVM_VERSION_PATTERN, lines.length > 2 ? lines[2].toLowerCase() : "").orElse(javaVersion);
+            case JAVA_VERSION  -> javaVersion;
+        };
+        // GraalVM based builds have their own version number, the version of the jdk they are based on is in the release file
+        final VersionNumber jdkVersion = BuildScope.BUILD_OF_GRAALVM == classification.buildScope() && !release.javaVersion().isEmpty() ? VersionNumber.fromText(release.javaVersion()) : version;
+
+        if (!release.isEmpty()) {
+            if (!release.osArch().isEmpty()) {
+                architecture = release.osArch().toLowerCase();
             }
-            Streamer streamer = new Streamer(process.getInputStream(), d -> {
-                final String parentPath      = OperatingSystem.WINDOWS == this.operatingSystem ? java.replaceAll("bin\\\\java.exe", "") : java.replaceAll(binFolder, fileSeparator);
-                final File   releaseFile     = new File(parentPath + "release");
-                String[]     lines           = d.split("\\|");
-                String       name            = "Unknown build of OpenJDK";
-                Distribution distribution    = Distribution.NOT_FOUND;
-                String       apiString       = "";
-                String       operatingSystem = "";
-                String       architecture    = "";
-                String       feature         = "";
-                Boolean      fxBundled       = Boolean.FALSE;
-                //FPU          fpu              = FPU.UNKNOWN;
-
-                if (Files.isSymbolicLink(Path.of(parentPath))) { return; }
-
-                if (!this.javaHome.isEmpty() && !inUse.get() && parentPath.contains(javaHome)) {
-                    inUse.set(true);
+            if (!release.osName().isEmpty()) {
+                switch (release.osName().toLowerCase()) {
+                    case "darwin" -> operatingSystem = "macos";
+                    case "linux" -> operatingSystem = "linux";
+                    case "windows" -> operatingSystem = "windows";
                 }
+            }
+            if (!release.modules().isEmpty() && !fxBundled) {
+                fxBundled = (release.modules().contains("javafx"));
+            }
+        /*
+        if (!release.sunArchAbi().isEmpty()) {
+            String abi = release.sunArchAbi();
+            switch (abi) {
+                case "gnueabi"   -> fpu = FPU.SOFT_FLOAT;
+                case "gnueabihf" -> fpu = FPU.HARD_FLOAT;
+            }
+        }
+        */
+        }
 
-                final File jreLibExtFolder = new File(new StringBuilder(parentPath).append("jre").append(fileSeparator).append("lib").append(fileSeparator).append("ext").toString());
-                if (jreLibExtFolder.exists()) {
-                    fxBundled = Stream.of(jreLibExtFolder.listFiles()).filter(file -> !file.isDirectory()).map(File::getName).collect(Collectors.toSet()).stream().filter(filename -> filename.equalsIgnoreCase("jfxrt.jar")).count() > 0;
-                }
-                final File jmodsFolder = new File(new StringBuilder(parentPath).append("jmods").toString());
-                if (jmodsFolder.exists()) {
-                    fxBundled = Stream.of(jmodsFolder.listFiles()).filter(file -> !file.isDirectory()).map(File::getName).collect(Collectors.toSet()).stream().filter(filename -> filename.startsWith("javafx")).count() > 0;
-                }
+        if (operatingSystem.isEmpty()) { operatingSystem = header.getOperatingSystemApiString(); }
+        if (architecture.isEmpty() && properties.containsKey("os.arch")) { architecture = properties.get("os.arch").toLowerCase(); }
+        if (architecture.isEmpty() && Architecture.NOT_FOUND != header.architecture()) { architecture = header.architecture().name().toLowerCase(); }
+        if (architecture.isEmpty()) { architecture = this.architecture.name().toLowerCase(); }
+
+        // Check if found distro is in use
+        for (ProcessInfo processInfo : usedDistros) {
+            if (java.contains(processInfo.cmd())) {
+                inUse.set(true);
+                usedBy.add(processInfo.cmdLine());
+                break;
+            }
+        }
 
-                VersionNumber version    = null;
-                VersionNumber jdkVersion = null;
-                BuildScope    buildScope = BuildScope.BUILD_OF_OPEN_JDK;
-
-                String line1         = lines[0];
-                String line2         = lines[1];
-                String withoutPrefix = line1;
-                if (line1.startsWith("openjdk")) {
-                    withoutPrefix = line1.replaceFirst("openjdk version", "");
-                } else if (line1.startsWith("java")) {
-                    withoutPrefix = line1.replaceFirst("java version", "");
-                    // Find new GraalVM build (former enterprise edition)
-                    if (line2.contains("GraalVM")) {
-                        name         = "GraalVM";
-                        apiString    = "graalvm";
-                        buildScope   = BuildScope.BUILD_OF_GRAALVM;
-                        distribution = Distribution.GRAALVM;
-                    } else {
-                        name       = "Oracle";
-                        apiString  = "oracle";
-                    }
-                }
+        return new DistributionInfo(now, classification.distribution(), classification.name(), classification.apiString(javaVersion.getMajorVersion().getAsInt()), version.toString(OutputFormat.REDUCED_COMPRESSED, true, true),
+                                    Integer.toString(jdkVersion.getMajorVersion().getAsInt()), operatingSystem, architecture, fxBundled, parentPath, classification.feature(), classification.buildScope(), active || inUse.get(), usedBy, detectionMethod);
+    }
 
-                // Find new GraalVM community builds
-                if (!apiString.equals("graalvm") && line2.contains("jvmci")) {
-                    VersionNumber newGraalVMBuild = VersionNumber.fromText("23.0-b12");
-                    VersionNumber graalvmBuildFound = VersionNumber.fromText(line2.substring(line2.indexOf("jvmci"), line2.length() - 1).replace("jvmci-", ""));
-                    if (graalvmBuildFound.compareTo(newGraalVMBuild) >= 0) {
-                        name         = "GraalVM Community";
-                        apiString    = "graalvm_community";
-                        buildScope   = BuildScope.BUILD_OF_GRAALVM;
-                        distribution = Distribution.GRAALVM_COMMUNITY;
-                    }
-                }
+    private static Optional<VersionNumber> findVersion(final Pattern pattern, final String text) {
+        return pattern.matcher(text).results().findFirst().map(result -> VersionNumber.fromText(result.group(2)));
+    }
 
-                if (line2.contains("Zulu")) {
-                    name         = "Zulu";
-                    apiString    = "zulu";
-                    distribution = Distribution.ZULU;
-                    ZULU_BUILD_MATCHER.reset(line2);
-                    final List<MatchResult> results = ZULU_BUILD_MATCHER.results().collect(Collectors.toList());
-                    if (!results.isEmpty()) {
-                        MatchResult result = results.get(0);
-                        version = VersionNumber.fromText(result.group(2));
-                    }
-                } else if (line2.contains("Zing") || line2.contains("Prime")) {
-                    name         = "ZuluPrime";
-                    apiString    = "zulu_prime";
-                    distribution = Distribution.ZULU_PRIME;
-                    final List<MatchResult> results = ZULU_BUILD_MATCHER.results().collect(Collectors.toList());
-                    if (!results.isEmpty()) {
-                        MatchResult result = results.get(0);
-                        version = VersionNumber.fromText(result.group(2));
-                    }
-                } else if (line2.contains("Semeru")) {
-                    if (line2.contains("Certified")) {
-                        name         = "Semeru certified";
-                        apiString    = "semeru_certified";
-                        distribution = Distribution.SEMERU_CERTIFIED;
-                    } else {
-                        name         = "Semeru";
-                        apiString    = "semeru";
-                        distribution = Distribution.SEMERU;
-                    }
-                } else if (line2.contains("Tencent")) {
-                    name         = "Kona";
-                    apiString    = "kona";
-                    distribution = Distribution.KONA;
-                } else if (line2.contains("Bisheng")) {
-                    name         = "Bishenq";
-                    apiString    = "bisheng";
-                    distribution = Distribution.BISHENG;
-                } else if (line2.startsWith("Java(TM) SE")) {
-                    name         = "Oracle";
-                    apiString    = "oracle";
-                    distribution = Distribution.ORACLE;
-                }
+    private static List<String> readReadme(final JdkHomeProbe probe) {
+        if (!probe.readme()) { return List.of(); }
+        try {
+            return Helper.readTextFileToList(probe.getReadmeFile().toString());
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
 
-                if (null == version) {
-                    final String versionNumberText = withoutPrefix.substring(withoutPrefix.indexOf("\"") + 1, withoutPrefix.lastIndexOf("\""));
-                    final Semver semver            = Semver.fromText(versionNumberText).getSemver1();
-                    version = VersionNumber.fromText(semver.toString(true));
-                }
-                VersionNumber graalVersion = version;
-
-                releaseProperties.clear();
-                if (releaseFile.exists()) {
-                    try (FileInputStream propFile = new FileInputStream(releaseFile)) {
-                        releaseProperties.load(propFile);
-                    } catch (IOException ex) {
-                        System.out.println("Error reading release properties file. " + ex);
-                    }
-                    if (!releaseProperties.isEmpty()) {
-                        if (releaseProperties.containsKey("IMPLEMENTOR") && name.equals(Constants.UNKNOWN_BUILD_OF_OPENJDK)) {
-                            switch (releaseProperties.getProperty("IMPLEMENTOR").replaceAll("\"", "")) {
-                                case "AdoptOpenJDK" -> { name         = "Adopt OpenJDK";
-                                                         apiString    = "aoj";
-                                                         distribution = Distribution.AOJ;
-                                }
-                                case "Alibaba" -> { name         = "Dragonwell";
-                                                    apiString    = "dragonwell";
-                                                    distribution = Distribution.DRAGONWELL;
-                                }
-                                case "Amazon.com Inc." -> { name         = "Corretto";
-                                                            apiString    = "corretto";
-                                                            distribution = Distribution.CORRETTO;
-                                }
-                                case "Azul Systems, Inc." -> {
-                                    if (releaseProperties.containsKey("IMPLEMENTOR_VERSION")) {
-                                        final String implementorVersion = releaseProperties.getProperty("IMPLEMENTOR_VERSION");
-                                        if (implementorVersion.startsWith("Zulu")) {
-                                            name         = "Zulu";
-                                            apiString    = "zulu";
-                                            distribution = Distribution.ZULU;
-                                        } else if (implementorVersion.startsWith("Zing") || implementorVersion.startsWith("Prime")) {
-                                            name         = "ZuluPrime";
-                                            apiString    = "zulu_prime";
-                                            distribution = Distribution.ZULU_PRIME;
-                                        }
-                                    }
-                                }
-                                case "mandrel" -> { name         = "Mandrel";
-                                                    apiString    = "mandrel";
-                                                    distribution = Distribution.MANDREL;
-                                }
-                                case "Microsoft" -> { name         = "Microsoft";
-                                                      apiString    = "microsoft";
-                                                      distribution = Distribution.MICROSOFT;
-                                }
-                                case "ojdkbuild" -> { name         = "OJDK Build";
-                                                      apiString    = "ojdk_build";
-                                                      distribution = Distribution.OJDK_BUILD;
-                                }
-                                case "Oracle Corporation" -> { name         = "Oracle OpenJDK";
-                                                               apiString    = "oracle_openjdk";
-                                                               distribution = Distribution.ORACLE_OPEN_JDK;
-                                }
-                                case "Red Hat, Inc." -> { name         = "Red Hat";
-                                                          apiString    = "redhat";
-                                                          distribution = Distribution.RED_HAT;
-                                }
-                                case "SAP SE" -> { name         = "SAP Machine";
-                                                   apiString    = "sap_machine";
-                                                   distribution = Distribution.SAP_MACHINE;
-                                }
-                                case "OpenLogic" -> { name         = "OpenLogic";
-                                                      apiString    = "openlogic";
-                                                      distribution = Distribution.OPEN_LOGIC;
-                                }
-                                case "JetBrains s.r.o." -> { name         = "JetBrains";
-                                                             apiString    = "jetbrains";
-                                                             distribution = Distribution.JETBRAINS;
-                                }
-                                case "Eclipse Foundation" -> { name         = "Temurin";
-                                                               apiString    = "temurin";
-                                                               distribution = Distribution.TEMURIN;
-                                }
-                                case "Tencent" -> { name         = "Kona";
-                                                    apiString    = "kona";
-                                                    distribution = Distribution.KONA;
-                                }
-                                case "Bisheng" -> { name         = "Bisheng";
-                                                    apiString    = "bisheng";
-                                                    distribution = Distribution.BISHENG;
-                                }
-                                case "Debian" -> { name         = "Debian";
-                                                   apiString    = "debian";
-                                                   distribution = Distribution.DEBIAN;
-                                }
-                                case "Ubuntu" -> { name         = "Ubuntu";
-                                                   apiString    = "ubuntu";
-                                                   distribution = Distribution.UBUNTU;
-                                }
-                                case "N/A" -> { }/* Unknown */
+    // Builds the java -version output from the release file, empty if the release file is missing or (if rejectAmbiguous) ambiguous
+    private Optional<String> getVersionOutputFromRelease(final JdkHomeProbe probe, final boolean rejectAmbiguous) {
+        final ReleaseFile release = probe.release();
+        if (release.isEmpty()) { return Optional.empty(); }
+        final String implementor        = release.implementor();
+        final String implementorVersion = release.implementorVersion();
+        final String runtimeVersion     = release.javaRuntimeVersion();
+        final String jvmVersion         = release.jvmVersion();
+        final String jvmVariant         = release.jvmVariant().toLowerCase();
+        if (implementor.isEmpty() || runtimeVersion.isEmpty()) { return Optional.empty(); }
+
+        // Oracle, IBM and GraalVM builds print their runtime name instead of OpenJDK, which can't be derived from the release file
+        final String vendorText = new StringBuilder(implementor).append(implementorVersion).append(runtimeVersion).append(jvmVersion).toString().toLowerCase();
+        if (rejectAmbiguous && (AMBIGUOUS_IMPLEMENTORS.contains(implementor) || !release.graalvmVersion().isEmpty() || jvmVariant.equals("openj9") ||
+            vendorText.contains("graalvm") || vendorText.contains("jvmci") || vendorText.contains("semeru"))) {
+            return Optional.empty();
+        }
 
-                            }
-                        }
-                        if (releaseProperties.containsKey("BUILD_TYPE")) {
-                            switch (releaseProperties.getProperty("BUILD_TYPE").replaceAll("\"", "")) {
-                                case "commercial" -> {
-                                    name         = "Oracle";
-                                    apiString    = "oracle";
-                                    distribution = Distribution.ORACLE;
-                                }
-                            }
-                        }
-                        if (releaseProperties.containsKey("OS_ARCH")) {
-                            architecture = releaseProperties.getProperty("OS_ARCH").toLowerCase().replaceAll("\"", "");
-                        }
-                        if (releaseProperties.containsKey("JVM_VARIANT")) {
-                            if (name == "Adopt OpenJDK") {
-                                String jvmVariant = releaseProperties.getProperty("JVM_VARIANT").toLowerCase().replaceAll("\"", "");
-                                if (jvmVariant.equals("dcevm")) {
-                                    name         = "Trava OpenJDK";
-                                    apiString    = "trava";
-                                    distribution = Distribution.TRAVA;
-                                } else if (jvmVariant.equals("openj9")) {
-                                    name         = "Adopt OpenJDK J9";
-                                    apiString    = "aoj_openj9";
-                                    distribution = Distribution.AOJ_OPENJ9;
-                                }
-                            }
-                        }
-                        if (releaseProperties.containsKey("OS_NAME")) {
-                            switch (releaseProperties.getProperty("OS_NAME").toLowerCase().replaceAll("\"", "")) {
-                                case "darwin" -> operatingSystem = "macos";
-                                case "linux" -> operatingSystem = "linux";
-                                case "windows" -> operatingSystem = "windows";
-                            }
-                        }
-                        if (releaseProperties.containsKey("MODULES") && !fxBundled) {
-                            fxBundled = (releaseProperties.getProperty("MODULES").contains("javafx"));
-                        }
-                    /*
-                    if (releaseProperties.containsKey("SUN_ARCH_ABI")) {
-                        String abi = releaseProperties.get("SUN_ARCH_ABI").toString();
-                        switch (abi) {
-                            case "gnueabi"   -> fpu = FPU.SOFT_FLOAT;
-                            case "gnueabihf" -> fpu = FPU.HARD_FLOAT;
-                        }
-                    }
-                    */
-                    }
-                }
+        // JAVA_VERSION is what java -version prints, JDK 8 runtime versions like 1.8.0_392-b08 carry no '+' in front of the build number.
+        // The runtime version of JDK 9+ is only used to keep a pre-release tag like 22-ea.
+        final int    buildIndex    = runtimeVersion.indexOf('+');
+        final String shortVersion  = buildIndex > 0 ? runtimeVersion.substring(0, buildIndex) : "";
+        final String javaVersion   = release.javaVersion().isEmpty() ? (shortVersion.isEmpty() ? runtimeVersion : shortVersion)
+                                                                     : shortVersion.startsWith(release.javaVersion() + "-") ? shortVersion : release.javaVersion();
+        final String vendorVersion = implementorVersion.isEmpty() ? "" : implementorVersion + " ";
+        return Optional.of(new StringBuilder().append("openjdk version \"").append(javaVersion).append("\"")
+                                              .append("|OpenJDK Runtime Environment ").append(vendorVersion).append("(build ").append(runtimeVersion).append(")")
+                                              .append("|OpenJDK 64-Bit Server VM ").append(vendorVersion).append("(build ").append(jvmVersion.isEmpty() ? runtimeVersion : jvmVersion).append(")")
+                                              .toString());
+    }
 
-                if (lines.length > 2) {
-                    String line3 = lines[2].toLowerCase();
-                    for (String feat : Constants.FEATURES) {
-                        if (line3.contains(feat)) {
-                            feature = feat;
-                            break;
-                        }
-                    }
+    private String getParentPath(final String java) {
+        final String fileSeparator = File.separator;
+        final String binFolder     = new StringBuilder(fileSeparator).append("bin").append(fileSeparator).append(".*").toString();
+        return OperatingSystem.WINDOWS == this.operatingSystem ? java.replaceAll("bin\\\\java.exe", "") : java.replaceAll(binFolder, fileSeparator);
+    }
 
-                }
+    // Cached probe results only contain what was read from the JDK, usage is always determined for the current run
+    private static boolean isFxBundled(final JdkHomeProbe probe) {
+        final Optional<JImage> image = probe.hasModules() ? JImage.open(probe.getModulesFile()) : Optional.empty();
+        return probe.jfxrtJar() || image.map(modulesImage -> modulesImage.getModules().stream().anyMatch(module -> module.startsWith("javafx"))).orElse(probe.javafxJmods());
+    }
 
-                if (name.equalsIgnoreCase("Mandrel")) {
-                    buildScope = BuildScope.BUILD_OF_GRAALVM;
-                    if (releaseProperties.containsKey("JAVA_VERSION")) {
-                        final String javaVersion = releaseProperties.getProperty("JAVA_VERSION");
-                        if (null == jdkVersion) { jdkVersion = VersionNumber.fromText(javaVersion); }
-                    }
-                }
+    // The JavaFX check is done now if the scan that classified the JDK skipped it but this scan needs it
+    private DistributionInfo fromProbeResult(final String java, final ProbeResults.Result result, final JdkHomeProbe probe, final boolean active) {
+        final DistributionInfo classified = result.distributionInfo();
+        final boolean          checkFx    = !result.fxBundledChecked() && !classified.fxBundled() && (probeCacheEnabled || fields.contains(OutputField.FX_BUNDLED));
+        return fromCache(java, classified, checkFx ? isFxBundled(probe) : classified.fxBundled(), active);
+    }
 
-                if (name.equals(Constants.UNKNOWN_BUILD_OF_OPENJDK) && lines.length > 2) {
-                    String line3      = lines[2].toLowerCase();
-                    File   readmeFile = new File(parentPath + "readme.txt");
-                    if (readmeFile.exists()) {
-                        try {
-                            List<String> readmeLines = Helper.readTextFileToList(readmeFile.getAbsolutePath());
-                            if (readmeLines.stream().filter(l -> l.toLowerCase().contains("liberica native image kit")).count() > 0) {
-                                name         = "Liberica Native";
-                                apiString    = "liberica_native";
-                                distribution = Distribution.LIBERICA_NATIVE;
-                                buildScope   = BuildScope.BUILD_OF_GRAALVM;
-
-                                GRAALVM_VERSION_MATCHER.reset(line3);
-                                final List<MatchResult> results = GRAALVM_VERSION_MATCHER.results().collect(Collectors.toList());
-                                if (!results.isEmpty()) {
-                                    MatchResult result = results.get(0);
-                                    version = VersionNumber.fromText(result.group(2));
-                                }
-                                if (releaseProperties.containsKey("JAVA_VERSION")) {
-                                    final String javaVersion = releaseProperties.getProperty("JAVA_VERSION");
-                                    if (null == jdkVersion) { jdkVersion = VersionNumber.fromText(javaVersion); }
-                                }
-                            } else if (readmeLines.stream().filter(l -> l.toLowerCase().contains("liberica")).count() > 0) {
-                                name         = "Liberica";
-                                apiString    = "liberica";
-                                distribution = Distribution.LIBERICA;
-                            }
-                        } catch (IOException e) {
+    private DistributionInfo fromCache(final String java, final DistributionInfo cached, final boolean active) {
+        return fromCache(java, cached, cached.fxBundled(), active);
+    }
+    private DistributionInfo fromCache(final String java, final DistributionInfo cached, final boolean fxBundled, final boolean active) {
+        final String       parentPath = getParentPath(java);
+        final List<String> usedBy     = new ArrayList<>();
+        boolean            inUse      = active || (!this.javaHome.isEmpty() && parentPath.contains(javaHome));
+        for (ProcessInfo processInfo : usedDistros) {
+            if (java.contains(processInfo.cmd())) {
+                inUse = true;
+                usedBy.add(processInfo.cmdLine());
+                break;
+            }
+        }
+        return new DistributionInfo(Instant.now(), cached.distribution(), cached.name(), cached.apiString(), cached.version(), cached.jdkMajorVersion(), cached.operatingSystem(), cached.architecture(), fxBundled, parentPath, cached.feature(), cached.buildScope(), inUse, usedBy, cached.detectionMethod());
+    }
 
-                        }
-                    } else {
-                        if (line3.contains("graalvm") && !apiString.equals("graalvm_community") && !apiString.equals("graalvm")) {
-                            name = "GraalVM CE";
-                            String distroPreFix = "graalvm_ce";
-                            if (releaseProperties.containsKey("IMPLEMENTOR")) {
-                                switch (releaseProperties.getProperty("IMPLEMENTOR").replaceAll("\"", "")) {
-                                    case "GraalVM Community" -> {
-                                        name         = "GraalVM CE";
-                                        distroPreFix = "graalvm_ce";
-                                        distribution = Distribution.GRAALVM_CE;
-                                    }
-                                    case "GraalVM Enterprise" -> {
-                                        name         = "GraalVM";
-                                        distroPreFix = "graalvm";
-                                        distribution = Distribution.GRAALVM_EE;
-                                    }
-                                }
-                            }
-                            apiString  = graalVersion.getMajorVersion().getAsInt() >= 8 ? distroPreFix + graalVersion.getMajorVersion().getAsInt() : "";
-                            buildScope = BuildScope.BUILD_OF_GRAALVM;
-
-                            GRAALVM_VERSION_MATCHER.reset(line3);
-                            final List<MatchResult> results = GRAALVM_VERSION_MATCHER.results().collect(Collectors.toList());
-                            if (!results.isEmpty()) {
-                                MatchResult result = results.get(0);
-                                version = VersionNumber.fromText(result.group(2));
-                            }
+    private void getJavaHome() {
+        final String javaHome = System.getenv("JAVA_HOME");
+        this.javaHome = null == javaHome ? "" : javaHome.trim();
+    }
 
-                            if (releaseProperties.containsKey("VENDOR")) {
-                                final String vendor = releaseProperties.getProperty("VENDOR").toLowerCase().replaceAll("\"", "");
-                                if (vendor.equalsIgnoreCase("Gluon")) {
-                                    name         = "Gluon GraalVM CE";
-                                    apiString    = "gluon_graalvm";
-                                    distribution = Distribution.GLUON_GRAALVM;
-                                }
-                            }
-                            if (releaseProperties.containsKey("JAVA_VERSION")) {
-                                final String javaVersion = releaseProperties.getProperty("JAVA_VERSION");
-                                if (null == jdkVersion) { jdkVersion = VersionNumber.fromText(javaVersion); }
-                            }
-                        } else if (line3.contains("microsoft")) {
-                            name         = "Microsoft";
-                            apiString    = "microsoft";
-                            distribution = Distribution.MICROSOFT;
-                        } else if (line3.contains("corretto")) {
-                            name         = "Corretto";
-                            apiString    = "corretto";
-                            distribution = Distribution.CORRETTO;
-                        } else if (line3.contains("temurin")) {
-                            name         = "Temurin";
-                            apiString    = "temurin";
-                            distribution = Distribution.TEMURIN;
-                        }
-                    }
-                }
 
-                if (null == jdkVersion) { jdkVersion = version; }
+    private static final class Usage {
+        private String            javaHome    = "";
+        private List<ProcessInfo> usedDistros = List.of();
+        private boolean           detected    = false;
+    }
 
-                if (architecture.isEmpty()) { architecture = this.architecture.name().toLowerCase(); }
 
-                // Check if found distro is in use
-                for (ProcessInfo processInfo : usedDistros) {
-                    if (java.contains(processInfo.cmd())) {
-                        inUse.set(true);
-                        usedBy.add(processInfo.cmdLine());
-                        break;
+    // The holder is initialized on first use, the hostname and the operating mode are only looked up if asked for
+    private static final class Platform {
+        private static final    Path            OS_RELEASE               = Paths.get("/etc/os-release");
+        private static final    Path            KERNEL_ARCH              = Paths.get("/proc/sys/kernel/arch");
+        private static final    Path            KERNEL_HOSTNAME          = Paths.get("/proc/sys/kernel/hostname");
+        private static final    Path            ETC_HOSTNAME             = Paths.get("/etc/hostname");
+        private static final    String[]        MAC_DETECT_ROSETTA2_CMDS = { "/usr/sbin/sysctl", "-in", "sysctl.proc_translated" };
+        static final            OperatingSystem OPERATING_SYSTEM         = operatingSystem();
+        static final            Architecture    ARCHITECTURE             = architecture(OPERATING_SYSTEM);
+        private static volatile String          hostname;
+        private static volatile OperatingMode   operatingMode;
+
+
+        private static OperatingSystem operatingSystem() {
+            final String os = Constants.OS_NAME_PROPERTY.toLowerCase();
+            if (os.indexOf("win") >= 0) {
+                return OperatingSystem.WINDOWS;
+            } else if (os.indexOf("mac") >= 0) {
+                return OperatingSystem.MACOS;
+            } else if (os.indexOf("nix") >= 0 || os.indexOf("nux") >= 0) {
+                try (BufferedReader reader = Files.newBufferedReader(OS_RELEASE)) {
+                    String line;
+                    while (null != (line = reader.readLine())) {
+                        if (line.contains("NAME=") && line.toLowerCase().contains("alpine")) { return OperatingSystem.ALPINE_LINUX; }
                     }
-                }
+                    return OperatingSystem.LINUX;
+                } catch (IOException | RuntimeException e) {
+                    return OperatingSystem.LINUX;
+                }
+            } else if (os.indexOf("sunos") >= 0) {
+                return OperatingSystem.SOLARIS;
+            } else {
+                return OperatingSystem.NOT_FOUND;
+            }
+        }
 
-                DistributionInfo distributionFound = new DistributionInfo(now, distribution, name, apiString, version.toString(OutputFormat.REDUCED_COMPRESSED, true, true), Integer.toString(jdkVersion.getMajorVersion().getAsInt()), operatingSystem, architecture, fxBundled, parentPath, feature, buildScope, true, usedBy);
+        // os.arch is the architecture of the running jvm, the machine architecture is taken from the kernel (Linux) or the environment (Windows) if available
+        private static Architecture architecture(final OperatingSystem operatingSystem) {
+            String arch = "";
+            switch (operatingSystem) {
+                case WINDOWS -> {
+                    final String wow64Arch = System.getenv("PROCESSOR_ARCHITEW6432");
+                    arch = null != wow64Arch ? wow64Arch : Objects.requireNonNullElse(System.getenv("PROCESSOR_ARCHITECTURE"), "");
+                }
+                case LINUX, ALPINE_LINUX -> arch = readFirstLine(KERNEL_ARCH);
+            }
+            final Architecture architecture = arch.isEmpty() ? Architecture.NOT_FOUND : Architecture.fromText(arch.trim());
+            if (Architecture.NOT_FOUND != architecture) { return architecture; }
 
-                distros.add(distributionFound);
-            });
-            service.submit(streamer);
-        } catch (Exception e) {
-            e.printStackTrace();
+            arch = Constants.OS_ARCH_PROPERTY.toLowerCase();
+            if (arch.contains("sparc")) return Architecture.SPARC;
+            if (arch.contains("amd64") || arch.contains("86_64")) return Architecture.AMD64;
+            if (arch.contains("86")) return Architecture.X86;
+            if (arch.contains("s390x")) return Architecture.S390X;
+            if (arch.contains("ppc64")) return Architecture.PPC64;
+            if (arch.contains("arm") && arch.contains("64")) return Architecture.AARCH64;
+            if (arch.contains("arm")) return Architecture.ARM;
+            if (arch.contains("aarch64")) return Architecture.AARCH64;
+            return Architecture.NOT_FOUND;
         }
-    }
 
-    private void getJavaHome() {
-        try {
-            ProcessBuilder processBuilder = OperatingSystem.WINDOWS == operatingSystem ? new ProcessBuilder(WIN_JAVA_HOME_CMDS) : OperatingSystem.MACOS == operatingSystem ? new ProcessBuilder(MAC_JAVA_HOME_CMDS) : new ProcessBuilder(LINUX_JAVA_HOME_CMDS);
-            Process        process        = processBuilder.start();
-            Streamer       streamer       = new Streamer(process.getInputStream(), d -> this.javaHome = d);
-            service.submit(streamer);
-        } catch (IOException e) {
-            e.printStackTrace();
+        static String hostname() {
+            if (null == hostname) {
+                String name = switch (OPERATING_SYSTEM) {
+                    case WINDOWS             -> System.getenv("COMPUTERNAME");
+                    case LINUX, ALPINE_LINUX -> readFirstLine(KERNEL_HOSTNAME);
+                    default                  -> "";
+                };
+                if (null == name || name.isBlank()) { name = readFirstLine(ETC_HOSTNAME); }
+                if (name.isBlank()) { name = Objects.requireNonNullElse(System.getenv("HOSTNAME"), ""); }
+                // No subprocess as last resort, a host that doesn't know its name reports "-"
+                hostname = name.isBlank() ? "-" : name.trim();
+            }
+            return hostname;
         }
-    }
 
-    private class Streamer implements Runnable {
-        private InputStream      inputStream;
-        private Consumer<String> consumer;
+        // Only an x64 jvm on macOS can run translated by Rosetta 2, everything else is native
+        static OperatingMode operatingMode() {
+            if (null == operatingMode) {
+                operatingMode = OperatingSystem.MACOS == OPERATING_SYSTEM && Architecture.AMD64 == ARCHITECTURE && run(MAC_DETECT_ROSETTA2_CMDS).equals("1") ? OperatingMode.EMULATED : OperatingMode.NATIVE;
+            }
+            return operatingMode;
+        }
 
-        public Streamer(final InputStream inputStream, final Consumer<String> consumer) {
-            this.inputStream = inputStream;
-            this.consumer    = consumer;
+        private static String readFirstLine(final Path path) {
+            try (BufferedReader reader = Files.newBufferedReader(path)) {
+                final String line = reader.readLine();
+                return null == line ? "" : line.trim();
+            } catch (IOException | RuntimeException e) {
+                return "";
+            }
         }
 
-        @Override public void run() {
-            final StringBuilder builder = new StringBuilder();
-            new BufferedReader(new InputStreamReader(inputStream)).lines().forEach(line -> builder.append(line).append("|"));
-            if (builder.length() > 0) {
-                builder.setLength(builder.length() - 1);
+        private static String run(final String[] cmds) {
+            try {
+                final Process process = new ProcessBuilder(cmds).redirectErrorStream(true).start();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    return reader.lines().collect(Collectors.joining("\n")).trim();
+                }
+            } catch (IOException e) {
+                return "";
             }
-            consumer.accept(builder.toString());
         }
     }
 }
@@ -26,6 +26,8 @@ import java.util.stream.Collectors;
 
 
 public class Helper {
+    private Helper() { }
+
     public static final List<String> readTextFileToList(final String filename) throws IOException {
         final Path           path   = Paths.get(filename);
         final BufferedReader reader = Files.newBufferedReader(path);
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+
+// Reads the lib/modules jimage file of a JDK 9+ runtime (memory mapped) without starting a JVM.
+// Layout: header, redirect table, offsets table, location attributes, strings, resources.
+public class JImage {
+    public  static final String      VERSION_PROPS          = "/java.base/java/lang/VersionProps.class";
+    private static final int         MAGIC                  = 0xCAFEDADA;
+    private static final int         MAJOR_VERSION          = 1;
+    private static final int         HEADER_SIZE            = 7 * 4;
+    private static final int         HASH_MULTIPLIER        = 0x01000193;
+    private static final int         COMPRESSED_MAGIC       = 0xCAFEFAFA;
+    private static final int         COMPRESSED_HEADER      = 29;
+    private static final int         ATTRIBUTE_END          = 0;
+    private static final int         ATTRIBUTE_MODULE       = 1;
+    private static final int         ATTRIBUTE_PARENT       = 2;
+    private static final int         ATTRIBUTE_BASE         = 3;
+    private static final int         ATTRIBUTE_EXTENSION    = 4;
+    private static final int         ATTRIBUTE_OFFSET       = 5;
+    private static final int         ATTRIBUTE_COMPRESSED   = 6;
+    private static final int         ATTRIBUTE_UNCOMPRESSED = 7;
+    private static final int         ATTRIBUTE_COUNT        = 8;
+    private        final ByteBuffer  image;
+    private        final int         tableLength;
+    private        final int         redirectOffset;
+    private        final int         offsetsOffset;
+    private        final int         locationsOffset;
+    private        final int         stringsOffset;
+    private        final long        indexSize;
+    private              Set<String> modules;
+
+
+    // ******************** Constructors **************************************
+    private JImage(final ByteBuffer image, final int tableLength, final int locationsSize, final int stringsSize) {
+        this.image           = image;
+        this.tableLength     = tableLength;
+        this.redirectOffset  = HEADER_SIZE;
+        this.offsetsOffset   = redirectOffset + tableLength * 4;
+        this.locationsOffset = offsetsOffset + tableLength * 4;
+        this.stringsOffset   = locationsOffset + locationsSize;
+        this.indexSize       = (long) stringsOffset + stringsSize;
+    }
+
+
+    // ******************** Methods *******************************************
+    public static Optional<JImage> open(final Path modulesFile) {
+        try (FileChannel channel = FileChannel.open(modulesFile, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) { return Optional.empty(); }
+            final MappedByteBuffer image = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            // The image is written in the byte order of the platform it was built for
+            image.order(ByteOrder.LITTLE_ENDIAN);
+            if (image.getInt(0) != MAGIC) {
+                image.order(ByteOrder.BIG_ENDIAN);
+                if (image.getInt(0) != MAGIC) { return Optional.empty(); }
+            }
+            // magic, version (major << 16 | minor), flags, resource count, table length, locations size, strings size
+            if (image.getInt(4) >>> 16 != MAJOR_VERSION) { return Optional.empty(); }
+            final int tableLength   = image.getInt(16);
+            final int locationsSize = image.getInt(20);
+            final int stringsSize   = image.getInt(24);
+            if (tableLength < 0 || locationsSize < 0 || stringsSize < 0 || HEADER_SIZE + tableLength * 8L + locationsSize + stringsSize > size) { return Optional.empty(); }
+            return Optional.of(new JImage(image, tableLength, locationsSize, stringsSize));
+        } catch (IOException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Names of all modules linked into the image (e.g. java.base, jdk.jfr, javafx.controls)
+    public synchronized Set<String> getModules() {
+        if (null == modules) {
+            final Set<String> names = new TreeSet<>();
+            for (int i = 0 ; i < tableLength ; i++) {
+                final long[] attributes = readLocation(image.getInt(offsetsOffset + i * 4));
+                final String module     = readString(attributes[ATTRIBUTE_MODULE]);
+                if (!module.isEmpty() && !module.equals("modules") && !module.equals("packages")) { names.add(module); }
+            }
+            modules = names;
+        }
+        return modules;
+    }
+
+    public boolean containsModule(final String module) { return getModules().contains(module); }
+
+    public Optional<byte[]> getResource(final String name) {
+        final long[] attributes = findLocation(name);
+        if (null == attributes) { return Optional.empty(); }
+        final long offset       = indexSize + attributes[ATTRIBUTE_OFFSET];
+        final long compressed   = attributes[ATTRIBUTE_COMPRESSED];
+        final long uncompressed = attributes[ATTRIBUTE_UNCOMPRESSED];
+        try {
+            byte[] bytes = readBytes(offset, (int) (0 == compressed ? uncompressed : compressed));
+            // Resources can be compressed several times, only the zip plugin is supported (string sharing needs the whole image)
+            while (bytes.length >= COMPRESSED_HEADER && ByteBuffer.wrap(bytes).order(image.order()).getInt(0) == COMPRESSED_MAGIC) {
+                final ByteBuffer header           = ByteBuffer.wrap(bytes).order(image.order());
+                final int        uncompressedSize = (int) header.getLong(12);
+                final String     decompressor     = readString(Integer.toUnsignedLong(header.getInt(20)));
+                if (!"zip".equals(decompressor)) { return Optional.empty(); }
+                final Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(bytes, COMPRESSED_HEADER, bytes.length - COMPRESSED_HEADER);
+                    final byte[] inflated = new byte[uncompressedSize];
+                    int length = 0;
+                    while (length < uncompressedSize && !inflater.finished()) {
+                        final int read = inflater.inflate(inflated, length, uncompressedSize - length);
+                        if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) { break; }
+                        length += read;
+                    }
+                    if (length != uncompressedSize) { return Optional.empty(); }
+                    bytes = inflated;
+                } finally {
+                    inflater.end();
+                }
+            }
+            return Optional.of(bytes);
+        } catch (DataFormatException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    // String constants of java.lang.VersionProps (java_version, java_runtime_version, VENDOR_VERSION_STRING, launcher_name...)
+    public Map<String, String> getVersionProperties() {
+        return getResource(VERSION_PROPS).map(JImage::readStringConstants).orElse(Map.of());
+    }
+
+    // Builds the output java -version would print, the name of the vm is not part of the image and always OpenJDK
+    public Optional<String> getVersionOutput(final boolean is64Bit) {
+        final Map<String, String> properties     = getVersionProperties();
+        final String              javaVersion    = properties.getOrDefault("java_version", "");
+        final String              runtimeVersion = properties.getOrDefault("java_runtime_version", "");
+        if (javaVersion.isEmpty() || runtimeVersion.isEmpty()) { return Optional.empty(); }
+        final String launcherName  = properties.getOrDefault("launcher_name", "openjdk");
+        final String runtimeName   = properties.getOrDefault("java_runtime_name", "OpenJDK Runtime Environment");
+        final String vendorVersion = getVendorVersion(properties);
+        final String lts           = properties.getOrDefault("VERSION_OPT", "").startsWith("LTS") ? " LTS" : "";
+        return Optional.of(new StringBuilder().append(launcherName).append(" version \"").append(javaVersion).append("\" ").append(properties.getOrDefault("java_version_date", "")).append(lts)
+                                              .append("|").append(runtimeName).append(" ").append(vendorVersion).append("(build ").append(runtimeVersion).append(")")
+                                              .append("|OpenJDK ").append(is64Bit ? "64" : "32").append("-Bit Server VM ").append(vendorVersion).append("(build ").append(runtimeVersion).append(")")
+                                              .toString());
+    }
+
+    // JDK 17+ store it in VENDOR_VERSION, JDK 11 in VENDOR_VERSION_STRING
+    private static String getVendorVersion(final Map<String, String> properties) {
+        final String vendorVersion = properties.getOrDefault("VENDOR_VERSION", properties.getOrDefault("VENDOR_VERSION_STRING", ""));
+        return vendorVersion.isEmpty() || vendorVersion.startsWith("@@") ? "" : vendorVersion + " ";
+    }
+
+    // Looks up a resource like /java.base/java/lang/Object.class via the perfect hash of the image index
+    private long[] findLocation(final String name) {
+        if (tableLength == 0) { return null; }
+        int       index    = (hashCode(name, HASH_MULTIPLIER) & 0x7FFFFFFF) % tableLength;
+        final int redirect = image.getInt(redirectOffset + index * 4);
+        if (redirect < 0) {
+            index = -1 - redirect;
+        } else if (redirect > 0) {
+            index = (hashCode(name, redirect) & 0x7FFFFFFF) % tableLength;
+        } else {
+            return null;
+        }
+        if (index < 0 || index >= tableLength) { return null; }
+        final long[] attributes = readLocation(image.getInt(offsetsOffset + index * 4));
+        return name.equals(fullName(attributes)) ? attributes : null;
+    }
+
+    private long[] readLocation(final int offset) {
+        final long[] attributes = new long[ATTRIBUTE_COUNT];
+        int position = locationsOffset + offset;
+        while (position < stringsOffset) {
+            final int data = image.get(position++) & 0xFF;
+            final int kind = data >>> 3;
+            if (ATTRIBUTE_END == kind || kind >= ATTRIBUTE_COUNT) { break; }
+            final int length = (data & 0x7) + 1;
+            long value = 0;
+            for (int i = 0 ; i < length ; i++) { value = (value << 8) | (image.get(position++) & 0xFF); }
+            attributes[kind] = value;
+        }
+        return attributes;
+    }
+
+    private String fullName(final long[] attributes) {
+        final String        module    = readString(attributes[ATTRIBUTE_MODULE]);
+        final String        parent    = readString(attributes[ATTRIBUTE_PARENT]);
+        final String        extension = readString(attributes[ATTRIBUTE_EXTENSION]);
+        final StringBuilder name      = new StringBuilder();
+        if (!module.isEmpty()) { name.append('/').append(module).append('/'); }
+        if (!parent.isEmpty()) { name.append(parent).append('/'); }
+        name.append(readString(attributes[ATTRIBUTE_BASE]));
+        if (!extension.isEmpty()) { name.append('.').append(extension); }
+        return name.toString();
+    }
+
+    private String readString(final long offset) {
+        int start = (int) (stringsOffset + offset);
+        int end   = start;
+        while (end < indexSize && image.get(end) != 0) { end++; }
+        final byte[] bytes = new byte[end - start];
+        image.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(final long offset, final int length) {
+        final byte[] bytes = new byte[length];
+        image.get((int) offset, bytes);
+        return bytes;
+    }
+
+    private static int hashCode(final String name, final int seed) {
+        int hash = seed;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) { hash = (hash * HASH_MULTIPLIER) ^ (b & 0xFF); }
+        return hash;
+    }
+
+    // Reads the ConstantValue of all static final String fields of a class file and the string constants
+    // that the static initializer assigns to static fields (javac folds e.g. VENDOR_VERSION into ldc + putstatic)
+    private static Map<String, String> readStringConstants(final byte[] classFile) {
+        final Map<String, String> constants = new HashMap<>();
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(classFile);
+            if (buffer.getInt() != 0xCAFEBABE) { return constants; }
+            buffer.position(8);
+            final int      poolSize    = Short.toUnsignedInt(buffer.getShort());
+            final String[] utf8        = new String[poolSize];
+            final int[]    stringRef   = new int[poolSize];
+            final int[]    fieldRef    = new int[poolSize];
+            final int[]    nameAndType = new int[poolSize];
+            for (int i = 1 ; i < poolSize ; i++) {
+                final int tag = buffer.get() & 0xFF;
+                switch (tag) {
+                    case 1                    -> {
+                        final int length = Short.toUnsignedInt(buffer.getShort(buffer.position()));
+                        utf8[i] = new DataInputStream(new ByteArrayInputStream(classFile, buffer.position(), length + 2)).readUTF();
+                        buffer.position(buffer.position() + 2 + length);
+                    }
+                    case 8                    -> stringRef[i]   = Short.toUnsignedInt(buffer.getShort());
+                    case 9                    -> fieldRef[i]    = buffer.getInt() & 0xFFFF;
+                    case 12                   -> nameAndType[i] = buffer.getInt() >>> 16;
+                    case 7, 16, 19, 20        -> buffer.position(buffer.position() + 2);
+                    case 15                   -> buffer.position(buffer.position() + 3);
+                    case 3, 4, 10, 11, 17, 18 -> buffer.position(buffer.position() + 4);
+                    case 5, 6                 -> {
+                        buffer.position(buffer.position() + 8);
+                        i++;
+                    }
+                    default                   -> { return constants; }
+                }
+            }
+            // Skip access flags, this and super class and the interfaces
+            buffer.position(buffer.position() + 6);
+            final int noOfInterfaces = Short.toUnsignedInt(buffer.getShort());
+            buffer.position(buffer.position() + 2 * noOfInterfaces);
+            final int noOfFields = Short.toUnsignedInt(buffer.getShort());
+            for (int i = 0 ; i < noOfFields ; i++) {
+                buffer.getShort();
+                final String fieldName = utf8[Short.toUnsignedInt(buffer.getShort())];
+                buffer.getShort();
+                final int noOfAttributes = Short.toUnsignedInt(buffer.getShort());
+                for (int j = 0 ; j < noOfAttributes ; j++) {
+                    final String attributeName = utf8[Short.toUnsignedInt(buffer.getShort())];
+                    final int    length        = buffer.getInt();
+                    final int    next          = buffer.position() + length;
+                    if ("ConstantValue".equals(attributeName) && length == 2) {
+                        final int index = Short.toUnsignedInt(buffer.getShort());
+                        if (stringRef[index] > 0 && null != utf8[stringRef[index]]) { constants.put(fieldName, utf8[stringRef[index]]); }
+                    }
+                    buffer.position(next);
+                }
+            }
+            final int noOfMethods = Short.toUnsignedInt(buffer.getShort());
+            for (int i = 0 ; i < noOfMethods ; i++) {
+                buffer.getShort();
+                final String methodName = utf8[Short.toUnsignedInt(buffer.getShort())];
+                buffer.getShort();
+                final int noOfAttributes = Short.toUnsignedInt(buffer.getShort());
+                for (int j = 0 ; j < noOfAttributes ; j++) {
+                    final String attributeName = utf8[Short.toUnsignedInt(buffer.getShort())];
+                    final int    length        = buffer.getInt();
+                    final int    next          = buffer.position() + length;
+                    if ("<clinit>".equals(methodName) && "Code".equals(attributeName)) {
+                        final int codeStart = buffer.position() + 8;
+                        final int codeEnd   = codeStart + buffer.getInt(buffer.position() + 4);
+                        for (int pc = codeStart ; pc + 4 < codeEnd ; pc++) {
+                            // ldc #string followed by putstatic #field
+                            if ((classFile[pc] & 0xFF) != 0x12 || (classFile[pc + 2] & 0xFF) != 0xB3) { continue; }
+                            final int string = classFile[pc + 1] & 0xFF;
+                            final int field  = ((classFile[pc + 3] & 0xFF) << 8) | (classFile[pc + 4] & 0xFF);
+                            if (stringRef[string] > 0 && field < poolSize && fieldRef[field] > 0 && null != utf8[nameAndType[fieldRef[field]]]) {
+                                constants.putIfAbsent(utf8[nameAndType[fieldRef[field]]], utf8[stringRef[string]]);
+                            }
+                        }
+                    }
+                    buffer.position(next);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Truncated or unknown class file, return what has been read so far
+        }
+        return constants;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+
+// Everything the classifier needs to know about a JDK home, gathered with one listing of the home folder
+// and only a few more calls for the sub folders that actually exist (helps a lot on network shares).
+public record JdkHomeProbe(Path home, boolean symbolicLink, ReleaseFile release, boolean jfxrtJar, boolean javafxJmods, boolean classesJsa, long modulesSize, boolean readme) {
+    public static final String RELEASE_FILE = ReleaseFile.FILE_NAME;
+    public static final String README_FILE  = "readme.txt";
+    public static final String MODULES_FILE = "modules";
+    public static final String LIB_FOLDER   = "lib";
+    public static final String JMODS_FOLDER = "jmods";
+    public static final String JRE_FOLDER   = "jre";
+
+
+    // ******************** Constructors **************************************
+    public JdkHomeProbe {
+        release = null == release ? ReleaseFile.EMPTY : release;
+    }
+
+
+    // ******************** Methods *******************************************
+    public boolean hasRelease() { return !release.isEmpty(); }
+
+    public boolean hasModules() { return modulesSize > 0; }
+
+    public Path getModulesFile() { return home.resolve(LIB_FOLDER).resolve(MODULES_FILE); }
+
+    public Path getReadmeFile() { return home.resolve(README_FILE); }
+
+    public static JdkHomeProbe of(final Path home) {
+        final BasicFileAttributes homeAttrs = readAttributes(home);
+        if (null == homeAttrs || homeAttrs.isSymbolicLink() || !homeAttrs.isDirectory()) {
+            return new JdkHomeProbe(home, null != homeAttrs && homeAttrs.isSymbolicLink(), ReleaseFile.EMPTY, false, false, false, 0, false);
+        }
+        ReleaseFile release = ReleaseFile.EMPTY;
+        boolean     readme  = false;
+        boolean     hasLib  = false;
+        boolean     hasJmod = false;
+        boolean     hasJre  = false;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(home)) {
+            for (Path entry : entries) {
+                switch (entry.getFileName().toString()) {
+                    case RELEASE_FILE -> release = ReleaseFile.read(entry);
+                    case README_FILE  -> readme  = true;
+                    case LIB_FOLDER   -> hasLib  = true;
+                    case JMODS_FOLDER -> hasJmod = true;
+                    case JRE_FOLDER   -> hasJre  = true;
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            // Not readable, nothing to classify
+        }
+
+        long    modulesSize = 0;
+        boolean classesJsa  = false;
+        if (hasLib) {
+            final BasicFileAttributes modulesAttrs = readAttributes(home.resolve(LIB_FOLDER).resolve(MODULES_FILE));
+            modulesSize = null == modulesAttrs ? 0 : modulesAttrs.size();
+            classesJsa  = null != readAttributes(home.resolve(LIB_FOLDER).resolve("server").resolve("classes.jsa"));
+        }
+        boolean javafxJmods = false;
+        if (hasJmod) {
+            try (DirectoryStream<Path> jmods = Files.newDirectoryStream(home.resolve(JMODS_FOLDER), "javafx*")) {
+                javafxJmods = jmods.iterator().hasNext();
+            } catch (IOException | DirectoryIteratorException e) {
+                javafxJmods = false;
+            }
+        }
+        final boolean jfxrtJar = hasJre && null != readAttributes(home.resolve(JRE_FOLDER).resolve(LIB_FOLDER).resolve("ext").resolve("jfxrt.jar"));
+        return new JdkHomeProbe(home, false, release, jfxrtJar, javafxJmods, classesJsa, modulesSize, readme);
+    }
+
+    private static BasicFileAttributes readAttributes(final Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -16,37 +16,59 @@
 
 package eu.hansolo.javafinder;
 
+import eu.hansolo.jdktools.scopes.BuildScope;
+
 import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static eu.hansolo.javafinder.Constants.FIELD_ALIASES;
 import static eu.hansolo.javafinder.Constants.FIELD_ARCHITECTURE;
 import static eu.hansolo.javafinder.Constants.FIELD_BIT;
 import static eu.hansolo.javafinder.Constants.FIELD_DISTRIBUTIONS;
+import static eu.hansolo.javafinder.Constants.FIELD_DURATION_MS;
 import static eu.hansolo.javafinder.Constants.FIELD_HOSTNAME;
 import static eu.hansolo.javafinder.Constants.FIELD_OPERATING_SYSTEM;
 import static eu.hansolo.javafinder.Constants.FIELD_SEARCH_PATH;
+import static eu.hansolo.javafinder.Constants.FIELD_SUMMARY;
 import static eu.hansolo.javafinder.Constants.FIELD_SYSINFO;
+import static eu.hansolo.javafinder.Constants.FIELD_TIMED_OUT_PROBES;
 import static eu.hansolo.javafinder.Constants.FIELD_TIMESTAMP;
-import static eu.hansolo.jdktools.Constants.COLON;
+import static eu.hansolo.javafinder.Constants.FIELD_TYPE;
 import static eu.hansolo.jdktools.Constants.COMMA;
 import static eu.hansolo.jdktools.Constants.COMMA_NEW_LINE;
 import static eu.hansolo.jdktools.Constants.CURLY_BRACKET_CLOSE;
 import static eu.hansolo.jdktools.Constants.CURLY_BRACKET_OPEN;
-import static eu.hansolo.jdktools.Constants.INDENT;
-import static eu.hansolo.jdktools.Constants.INDENTED_QUOTES;
 import static eu.hansolo.jdktools.Constants.NEW_LINE;
-import static eu.hansolo.jdktools.Constants.QUOTES;
 import static eu.hansolo.jdktools.Constants.SQUARE_BRACKET_CLOSE;
 import static eu.hansolo.jdktools.Constants.SQUARE_BRACKET_OPEN;
 
 
 public class Main {
-    private static final String VERSION = "21.0.0";
-    private        final Finder finder;
+    private static final String       VERSION         = "21.0.0";
+    private static final String       PHASE_SYSINFO   = "sysinfo";
+    private static final String       PHASE_PROCESSES = "processes";
+    private static final String       PHASE_ACTIVES   = "actives";
+    private static final String       PHASE_SCAN      = "scan";
+    private static final List<String> PHASES          = List.of(PHASE_SYSINFO, PHASE_PROCESSES, PHASE_ACTIVES, PHASE_SCAN);
+    private        final Finder       finder;
 
 
     // ******************** Constructors **************************************
@@ -60,14 +82,168 @@ public class Main {
 
 
     // ******************** Methods *******************************************
-    private void findJava(final String[] args) {
+    private void findJava(final String[] arguments) {
         final long timestamp = Instant.now().getEpochSecond();
-
-        // System information
-        final SysInfo sysInfo = Finder.getSysInfo();
+        final long start     = System.nanoTime();
 
         boolean findActivesOnly = false;
 
+        // Scan options
+        int              maxDepth               = ScanOptions.DEFAULT.maxDepth();
+        Set<String>      excludedFileStoreTypes = new HashSet<>(ScanOptions.DEFAULT.excludedFileStoreTypes());
+        List<String>     excludeGlobs           = new ArrayList<>();
+        boolean          pruneJdkHomes          = ScanOptions.DEFAULT.pruneJdkHomes();
+        boolean          useProbeCache          = true;
+        boolean          timings                = false;
+        int              probeThreads           = ProbeScheduler.DEFAULT_CONCURRENCY;
+        Duration         probeTimeout           = ProbeScheduler.DEFAULT_TIMEOUT;
+        ProbeProfile     probeProfile           = ProbeProfile.LIGHT;
+        boolean          probeShowSettings      = false;
+        Set<OutputField> fields                 = null;
+        int              filterMajorVersion     = 0;
+        String           filterVendor           = "";
+        String           filterArchitecture     = "";
+        BuildScope       filterBuildScope       = BuildScope.NOT_FOUND;
+        List<String>     remaining              = new ArrayList<>();
+        for (int i = 0 ; i < (null == arguments ? 0 : arguments.length) ; i++) {
+            final String argument = arguments[i];
+            final String value    = i + 1 < arguments.length ? arguments[i + 1] : null;
+            switch (argument) {
+                case "--max-depth" -> {
+                    try {
+                        maxDepth = Integer.parseInt(value);
+                        if (maxDepth < 1) { throw new NumberFormatException(); }
+                    } catch (NumberFormatException e) {
+                        System.out.println(Constants.RED + "--max-depth needs a positive number" + Constants.RESET_COLOR);
+                        System.exit(1);
+                    }
+                    i++;
+                }
+                case "--exclude" -> {
+                    if (null == value) {
+                        System.out.println(Constants.RED + "--exclude needs a glob pattern" + Constants.RESET_COLOR);
+                        System.exit(1);
+                    }
+                    excludeGlobs.add(value);
+                    i++;
+                }
+                case "--exclude-fs" -> {
+                    if (null == value) {
+                        System.out.println(Constants.RED + "--exclude-fs needs a comma separated list of filesystem types" + Constants.RESET_COLOR);
+                        System.exit(1);
+                    }
+                    Arrays.stream(value.split(",")).map(String::trim).filter(type -> !type.isEmpty()).forEach(excludedFileStoreTypes::add);
+                    i++;
+                }
+                case "--probe-threads" -> {
+                    try {
+                        probeThreads = Integer.parseInt(value);
+                        if (probeThreads < 1) { throw new NumberFormatException(); }
+                    } catch (NumberFormatException e) {
+                        System.out.println(Constants.RED + "--probe-threads needs a number greater than 0" + Constants.RESET_COLOR);
+                        System.exit(1);
+                    }
+                    i++;
+                }
+                case "--probe-timeout" -> {
+                    try {
+                        probeTimeout = Duration.ofMillis(Math.round(Double.parseDouble(value) * 1000));
+                        if (probeTimeout.isNegative() || probeTimeout.isZero()) { throw new NumberFormatException(); }
+                    } catch (NullPointerException | NumberFormatException e) {
+                        System.out.println(Constants.RED + "--probe-timeout needs a number of seconds greater than 0" + Constants.RESET_COLOR);
+                        System.exit(1);
+                    }
+                    i++;
+                }
+                case "--probe-profile" -> {
+                    probeProfile = ProbeProfile.fromText(value);
+                    if (ProbeProfile.NOT_FOUND == probeProfile) {
+                        System.out.println(Constants.RED + "--probe-profile needs one of light, plain" + Constants.RESET_COLOR);
+                        System.exit(1);
+                    }
+                    i++;
+                }
+                case "--fields" -> {
+                    fields = EnumSet.noneOf(OutputField.class);
+                    for (String name : null == value ? new String[0] : value.split(",")) {
+                        final OutputField field = OutputField.fromText(name.trim());
+                        if (OutputField.NOT_FOUND == field) {
+                            System.out.println(Constants.RED + "Unknown field " + name.trim() + ", --fields needs a comma separated list of " + OutputField.ALL.stream().map(OutputField::getApiString).collect(Collectors.joining(", ")) + Constants.RESET_COLOR);
+                            System.exit(1);
+                        }
+                        fields.add(field);
+                    }
+                    if (fields.isEmpty()) {
+                        System.out.println(Constants.RED + "--fields needs a comma separated list of field names" + Constants.RESET_COLOR);
+                        System.exit(1);
+                    }
+                    i++;
+                }
+                case "--major" -> {
+                    try {
+                        filterMajorVersion = Integer.parseInt(value);
+                        if (filterMajorVersion < 1) { throw new NumberFormatException(); }
+                    } catch (NumberFormatException e) {
+                        System.out.println(Constants.RED + "--major needs a major version greater than 0" + Constants.RESET_COLOR);
+                        System.exit(1);
+                    }
+                    i++;
+                }
+                case "--vendor", "--arch" -> {
+                    if (null == value || value.isBlank()) {
+                        System.out.println(Constants.RED + argument + " needs a value" + Constants.RESET_COLOR);
+                        System.exit(1);
+                    }
+                    if (argument.equals("--vendor")) { filterVendor = value; } else { filterArchitecture = value; }
+                    i++;
+                }
+                case "--scope" -> {
+                    filterBuildScope = DistributionFilter.buildScopeFromText(value);
+                    if (BuildScope.NOT_FOUND == filterBuildScope || BuildScope.NONE == filterBuildScope) {
+                        System.out.println(Constants.RED + "--scope needs one of openjdk, graalvm" + Constants.RESET_COLOR);
+                        System.exit(1);
+                    }
+                    i++;
+                }
+                case "--probe-settings" -> probeShowSettings = true;
+                case "--all-fs"         -> excludedFileStoreTypes.clear();
+                case "--no-prune"       -> pruneJdkHomes = false;
+                case "--no-cache"       -> useProbeCache = false;
+                case "--timings"        -> timings = true;
+                default                 -> remaining.add(argument);
+            }
+        }
+        final String[]           args        = remaining.toArray(new String[0]);
+        final ScanOptions        scanOptions = new ScanOptions(maxDepth, excludedFileStoreTypes, excludeGlobs, pruneJdkHomes);
+        final DistributionFilter filter      = new DistributionFilter(filterMajorVersion, filterVendor, filterArchitecture, filterBuildScope);
+        finder.setProbeCacheEnabled(useProbeCache);
+        finder.setDirectoryCacheEnabled(useProbeCache);
+        finder.setProbeConcurrency(probeThreads);
+        finder.setProbeTimeout(probeTimeout);
+        finder.setProbeProfile(probeProfile);
+        finder.setProbeShowSettings(probeShowSettings);
+
+        // javafinder resolve SPEC prints the home folder of the newest matching JDK, e.g. export JAVA_HOME=$(javafinder resolve temurin@21)
+        if (args.length > 0 && args[0].equals("resolve")) {
+            if (args.length != 2) {
+                System.err.println(Constants.RED + "Usage: javafinder resolve SPEC" + Constants.RESET_COLOR);
+                System.exit(1);
+            }
+            try {
+                final Optional<DistributionInfo> distro = finder.resolve(args[1]);
+                if (distro.isEmpty()) {
+                    System.err.println(Constants.RED + "No JDK found for " + args[1] + Constants.RESET_COLOR);
+                    System.exit(1);
+                }
+                final String location = distro.get().location();
+                System.out.println(location.length() > 1 && location.endsWith(File.separator) ? location.substring(0, location.length() - 1) : location);
+                System.exit(0);
+            } catch (IllegalArgumentException e) {
+                System.err.println(Constants.RED + e.getMessage() + Constants.RESET_COLOR);
+                System.exit(1);
+            }
+        }
+
         // JDK distributions
         String     searchPath = "";
         OutputType outputType = OutputType.JSON;
@@ -96,11 +272,39 @@ public class Main {
                                        
                                        javafinder OUTPUTFORMAT PATH
                                        
-                                       OUTPUTFORMAT: csv, json
+                                       OUTPUTFORMAT: csv, json, ndjson, binary
                                        If not present it will default to json
+                                       ndjson writes one line per distribution as soon as it has been found, followed by a summary line
+                                       binary writes a compact inventory that can be loaded with BinaryInventory.read()
                                        
                                        PATH: A valid path on your local filesystem
                                        
+                                       javafinder resolve SPEC
+                                       -> Prints the home folder of the newest JDK matching SPEC and exits with 1 if there is none
+                                          SPEC: [distribution or vendor][@major][/architecture], e.g. temurin@21, 17, zulu@21/aarch64, graalvm@21
+                                          Answered from the probe cache if possible, otherwise the usual install locations are scanned
+                                       
+                                       Scan options (can be combined with all of the above):
+                                       --max-depth N       Only descend N folders below PATH
+                                       --exclude GLOB      Skip files and folders matching GLOB (e.g. node_modules or /home/*/.cache/**)
+                                       --exclude-fs TYPES  Skip filesystems of the given comma separated types (e.g. nfs,fuse.sshfs)
+                                       --all-fs            Also scan pseudo (proc, sysfs, tmpfs...) and remote (nfs, cifs...) filesystems
+                                       --no-prune          Also descend into found JDK folders
+                                       --no-cache          Scan all folders and probe all JDKs again instead of using the results cached in ~/.cache/javafinder
+                                       --probe-threads N   Run up to N java -version probes in parallel (default: number of cores)
+                                       --probe-timeout S   Kill a java -version probe after S seconds (default: 10)
+                                       --probe-profile P   JVM flags for the probes, light (small heap, serial gc, C1 only) or plain (default: light)
+                                       --probe-settings    Let the probes also print their system properties (java.vendor, os.arch...)
+                                       --fields LIST       Only compute and write the given comma separated fields (vendor, name, version, timestamp, path, aliases,
+                                                           build_scope, detection, in_use, used_by, fx_bundled, sysinfo), e.g. --fields version,path
+                                       --timings           Print the duration of each phase (sysinfo, processes, actives, scan) to stderr
+                                       
+                                       Filters (JDKs that can't match are not probed):
+                                       --major N           Only JDKs with major version N (e.g. 21)
+                                       --vendor V          Only JDKs of the given distribution or vendor (e.g. temurin, zulu, eclipse, azul)
+                                       --arch A            Only JDKs for the given architecture (e.g. x64, aarch64)
+                                       --scope S           Only builds of openjdk or graalvm
+                                       
                                        Examples:
                                        javafinder csv c:\\
                                        
@@ -117,6 +321,10 @@ public class Main {
                                        javafinder c:\\ -ao
                                        
                                        javafinder /System/Volumes/Data/Library/Java/JavaVirtualMachines
+                                       
+                                       javafinder json / --max-depth 6 --exclude node_modules
+                                       
+                                       export JAVA_HOME=$(javafinder resolve temurin@21)
                                        """);
                     System.exit(0);
                 } else if (firstArgument.equals("-v") || firstArgument.equals("-V")) {
@@ -128,6 +336,12 @@ public class Main {
                 } else if (firstArgument.equals("json")) {
                     outputType = OutputType.BEAUTIFIED_JSON;
                     searchPath = Finder.getDefaultSearchPath();
+                } else if (firstArgument.equals("ndjson")) {
+                    outputType = OutputType.NDJSON;
+                    searchPath = Finder.getDefaultSearchPath();
+                } else if (firstArgument.equals("binary")) {
+                    outputType = OutputType.BINARY;
+                    searchPath = Finder.getDefaultSearchPath();
                 } else if (firstArgument.equals("-ao") || firstArgument.equals("-AO")) {
                     findActivesOnly = true;
                     searchPath      = Finder.getDefaultSearchPath();
@@ -152,84 +366,240 @@ public class Main {
             System.exit(1);
         }
 
-        List<String> actives = new ArrayList<>();
-        ProcessMonitor processMonitor = new ProcessMonitor();
-        actives.addAll(processMonitor.runOnce());
+        // Only compute what will be written, the binary inventory always contains all fields
+        final Set<OutputField> outputFields = null != fields ? fields : OutputType.BINARY == outputType ? OutputField.ALL : OutputField.DEFAULT;
 
-        Set<DistributionInfo> activeDistros = finder.getActiveDistributions(actives);
-        Set<DistributionInfo> distros;
+        // System information, running java processes and the path scan don't depend on each other, they run at the same time and are joined for the output.
+        // The active distributions are probed by a copy of the finder because a finder runs one scan at a time. On a single core the phases run one after the other.
+        final boolean                                  needsSysInfo   = outputFields.contains(OutputField.SYSINFO) || OutputType.BINARY == outputType;
+        final boolean                                  needsActives   = findActivesOnly || OutputField.needsUsage(outputFields);
+        final List<String>                             searchPaths    = List.of(searchPath);
+        final Finder                                   activeFinder   = finder.copy();
+        final Map<String, Long>                        phaseTimes     = new ConcurrentHashMap<>();
+        final Executor                                 phases         = Runtime.getRuntime().availableProcessors() > 1 ? Executors.newVirtualThreadPerTaskExecutor() : Runnable::run;
+        final CompletableFuture<SysInfo>               sysInfoFuture  = CompletableFuture.supplyAsync(timed(phaseTimes, PHASE_SYSINFO, () -> needsSysInfo ? Finder.getSysInfo() : null), phases);
+        final CompletableFuture<Set<DistributionInfo>> activesFuture  = CompletableFuture.supplyAsync(timed(phaseTimes, PHASE_PROCESSES, () -> needsActives ? new ProcessMonitor().runOnce() : List.<String>of()), phases)
+                                                                                         .thenApplyAsync(timed(phaseTimes, PHASE_ACTIVES, actives -> {
+                                                                                             final Set<DistributionInfo> activeDistros = activeFinder.getActiveDistributions(actives);
+                                                                                             activeDistros.removeIf(activeDistro -> !filter.matches(activeDistro));
+                                                                                             return activeDistros;
+                                                                                         }), phases);
+
+        if (OutputType.NDJSON == outputType) {
+            streamDistributions(timestamp, start, sysInfoFuture, searchPath, scanOptions, outputFields, filter, findActivesOnly, activesFuture, activeFinder, phaseTimes, timings, probeTimeout);
+            System.exit(0);
+        }
 
+        final CompletableFuture<Set<DistributionInfo>> distrosFuture  = findActivesOnly ? activesFuture : CompletableFuture.supplyAsync(timed(phaseTimes, PHASE_SCAN, () -> finder.getDistributions(searchPaths, scanOptions, outputFields, filter, null)), phases);
+        final SysInfo                                  sysInfo        = sysInfoFuture.join();
+        final Set<DistributionInfo>                    activeDistros  = activesFuture.join();
+        final Set<DistributionInfo>                    distros        = distrosFuture.join();
+
+        if (!findActivesOnly) {
+            final Map<String, DistributionInfo> scannedDistros = new HashMap<>();
+            distros.forEach(distro -> scannedDistros.putIfAbsent(distro.location(), distro));
+            for (DistributionInfo activeDistro : activeDistros) {
+                final DistributionInfo distro = scannedDistros.get(activeDistro.location());
+                if (null == distro) {
+                    distros.add(activeDistro);
+                } else {
+                    markActive(distro, activeDistro);
+                }
+            }
+        }
+
+        // Output
+        // The binary inventory is always written, a host without any JDK still reports its sysinfo
+        if (OutputType.BINARY == outputType) {
+            try {
+                BinaryInventory.of(timestamp, searchPath, sysInfo, distros).write(System.out);
+            } catch (IOException e) {
+                System.err.println(Constants.RED + "Error writing binary inventory: " + e.getMessage() + Constants.RESET_COLOR);
+                System.exit(1);
+            }
+        } else if (!distros.isEmpty()) {
+            final OutputWriter writer = OutputWriter.of(System.out);
+            switch(outputType) {
+                case CSV -> {
+                    DistributionInfo.writeCsvHeader(writer, outputFields);
+                    distros.forEach(distro -> distro.write(writer, OutputType.CSV, outputFields));
+                }
+                case BEAUTIFIED_JSON -> {
+                    writer.raw(CURLY_BRACKET_OPEN).raw(NEW_LINE)
+                          .indent(1).name(FIELD_TIMESTAMP).number(timestamp).raw(COMMA_NEW_LINE)
+                          .indent(1).name(FIELD_SEARCH_PATH).string(searchPath).raw(COMMA_NEW_LINE);
+                    boolean first = true;
+                    if (null != sysInfo) {
+                        writer.indent(1).name(FIELD_SYSINFO).raw(CURLY_BRACKET_OPEN).raw(NEW_LINE)
+                              .indent(2).name(FIELD_OPERATING_SYSTEM).string(sysInfo.operatingSystem().getUiString()).raw(COMMA_NEW_LINE)
+                              .indent(2).name(FIELD_ARCHITECTURE).string(sysInfo.architecture().getUiString()).raw(COMMA_NEW_LINE)
+                              .indent(2).name(FIELD_BIT).string(sysInfo.architecture().getBitness().getUiString()).raw(COMMA_NEW_LINE)
+                              .indent(2).name(FIELD_HOSTNAME).string(sysInfo.hostname()).raw(COMMA).raw(NEW_LINE)
+                              .indent(2).name("environt_variables").raw(CURLY_BRACKET_OPEN).raw(NEW_LINE);
+                        for (Map.Entry<String, String> entry : sysInfo.envVariables().entrySet()) {
+                            if (!first) { writer.raw(COMMA_NEW_LINE); }
+                            writer.indent(3).name(entry.getKey()).string(entry.getValue());
+                            first = false;
+                        }
+                        writer.raw(NEW_LINE).indent(2).raw(CURLY_BRACKET_CLOSE).raw(NEW_LINE)
+                              .indent(1).raw(CURLY_BRACKET_CLOSE).raw(COMMA_NEW_LINE);
+                    }
+                    writer.indent(1).name(FIELD_DISTRIBUTIONS).raw(SQUARE_BRACKET_OPEN).raw(NEW_LINE);
+                    first = true;
+                    for (DistributionInfo distro : distros) {
+                        if (!first) { writer.raw(COMMA_NEW_LINE); }
+                        distro.write(writer, OutputType.BEAUTIFIED_JSON, outputFields);
+                        first = false;
+                    }
+                    writer.raw(NEW_LINE).indent(1).raw(SQUARE_BRACKET_CLOSE).raw(NEW_LINE)
+                          .raw(CURLY_BRACKET_CLOSE).raw(NEW_LINE);
+                }
+                default -> {
+                    writer.raw(CURLY_BRACKET_OPEN)
+                          .name(FIELD_TIMESTAMP).number(timestamp).raw(COMMA)
+                          .name(FIELD_SEARCH_PATH).string(searchPath).raw(COMMA);
+                    boolean first = true;
+                    if (null != sysInfo) {
+                        writer.name(FIELD_SYSINFO).raw(CURLY_BRACKET_OPEN)
+                              .name(FIELD_OPERATING_SYSTEM).string(sysInfo.operatingSystem().getUiString()).raw(COMMA)
+                              .name(FIELD_ARCHITECTURE).string(sysInfo.architecture().getUiString()).raw(COMMA)
+                              .name(FIELD_BIT).string(sysInfo.architecture().getBitness().getUiString()).raw(COMMA)
+                              .name(FIELD_HOSTNAME).string(sysInfo.hostname()).raw(COMMA)
+                              .name("environt_variables").raw(CURLY_BRACKET_OPEN);
+                        for (Map.Entry<String, String> entry : sysInfo.envVariables().entrySet()) {
+                            if (!first) { writer.raw(COMMA); }
+                            writer.name(entry.getKey()).string(entry.getValue());
+                            first = false;
+                        }
+                        writer.raw(CURLY_BRACKET_CLOSE)
+                              .raw(CURLY_BRACKET_CLOSE).raw(COMMA);
+                    }
+                    writer.name(FIELD_DISTRIBUTIONS).raw(SQUARE_BRACKET_OPEN);
+                    first = true;
+                    for (DistributionInfo distro : distros) {
+                        if (!first) { writer.raw(COMMA); }
+                        distro.write(writer, OutputType.JSON, outputFields);
+                        first = false;
+                    }
+                    writer.raw(SQUARE_BRACKET_CLOSE)
+                          .raw(CURLY_BRACKET_CLOSE).raw(NEW_LINE);
+                }
+            }
+            writer.flush();
+        }
+        final int timedOutProbes = finder.getTimedOutProbes() + activeFinder.getTimedOutProbes();
+        if (timedOutProbes > 0) {
+            System.err.println(Constants.YELLOW + timedOutProbes + " probe(s) timed out after " + (probeTimeout.toMillis() / 1000.0) + "s" + Constants.RESET_COLOR);
+        }
+        if (timings) { printTimings(phaseTimes, start); }
+        System.exit(0);
+    }
+
+    // Writes one json object per line for each distribution as soon as it has been found and a summary object with the sysinfo at the end
+    // Running distributions that are not part of the scan are written once they are known
+    private void streamDistributions(final long timestamp, final long start, final CompletableFuture<SysInfo> sysInfoFuture, final String searchPath, final ScanOptions scanOptions, final Set<OutputField> fields,
+                                     final DistributionFilter filter, final boolean findActivesOnly, final CompletableFuture<Set<DistributionInfo>> activesFuture, final Finder activeFinder,
+                                     final Map<String, Long> phaseTimes, final boolean timings, final Duration probeTimeout) {
+        final OutputWriter          out = OutputWriter.of(System.out);
+        final Set<DistributionInfo> distros;
         if (findActivesOnly) {
-            distros = activeDistros;
+            distros = activesFuture.join();
+            distros.forEach(distro -> println(out, distro, fields));
         } else {
-            distros = finder.getDistributions(List.of(searchPath));
-            for (DistributionInfo activedistro : activeDistros) {
-                distros.stream().filter(distro -> distro.equals(activedistro)).forEach(distro -> {
-                    distro.setActive(true);
-                    if (activedistro.usedBy() != distro.usedBy()) {
-                        distro.usedBy().addAll(activedistro.usedBy());
-                    }
-                });
-            }
-            //distros.stream().filter(distro -> activeDistros.contains(distro)).forEach(distro -> distro.setActive(true));
-            activeDistros.stream().filter(activeDistro -> !distros.contains(activeDistro)).forEach(activeDistro -> distros.add(activeDistro));
+            // The scan determines in_use and used_by itself, only running JDKs outside of the search path are written after it
+            distros = timed(phaseTimes, PHASE_SCAN, () -> finder.getDistributions(List.of(searchPath), scanOptions, fields, filter, distro -> println(out, distro, fields))).get();
+            final Set<DistributionInfo> activeDistros    = activesFuture.join();
+            final Set<String>           scannedLocations = distros.stream().map(DistributionInfo::location).collect(Collectors.toSet());
+            activeDistros.stream().filter(activeDistro -> !scannedLocations.contains(activeDistro.location())).forEach(activeDistro -> {
+                distros.add(activeDistro);
+                println(out, activeDistro, fields);
+            });
         }
 
-        StringBuilder msgBuilder;
-        switch(outputType) {
-            case CSV ->
-                msgBuilder = new StringBuilder().append("Vendor,Distribution,Version,Timestamp,Path,Type,InUse,Timestamp")
-                                                .append(NEW_LINE)
-                                                .append(distros.stream().map(distro -> distro.toString(OutputType.CSV)).collect(Collectors.joining()));
-            case BEAUTIFIED_JSON -> {
-                msgBuilder = new StringBuilder().append(CURLY_BRACKET_OPEN).append(NEW_LINE)
-                                                .append(INDENTED_QUOTES).append(FIELD_TIMESTAMP).append(QUOTES).append(COLON).append(timestamp).append(COMMA_NEW_LINE)
-                                                .append(INDENTED_QUOTES).append(FIELD_SEARCH_PATH).append(QUOTES).append(COLON).append(QUOTES).append(searchPath.replaceAll("\\\\", "\\\\\\\\")).append(QUOTES).append(COMMA_NEW_LINE)
-                                                .append(INDENTED_QUOTES).append(FIELD_SYSINFO).append(QUOTES).append(COLON).append(CURLY_BRACKET_OPEN).append(NEW_LINE)
-                                                .append(INDENT).append(INDENTED_QUOTES).append(FIELD_OPERATING_SYSTEM).append(QUOTES).append(COLON).append(QUOTES).append(sysInfo.operatingSystem().getUiString()).append(QUOTES).append(COMMA_NEW_LINE)
-                                                .append(INDENT).append(INDENTED_QUOTES).append(FIELD_ARCHITECTURE).append(QUOTES).append(COLON).append(QUOTES).append(sysInfo.architecture().getUiString()).append(QUOTES).append(COMMA_NEW_LINE)
-                                                .append(INDENT).append(INDENTED_QUOTES).append(FIELD_BIT).append(QUOTES).append(COLON).append(QUOTES).append(sysInfo.architecture().getBitness().getUiString()).append(QUOTES).append(COMMA_NEW_LINE)
-                                                .append(INDENT).append(INDENTED_QUOTES).append(FIELD_HOSTNAME).append(QUOTES).append(COLON).append(QUOTES).append(sysInfo.hostname()).append(QUOTES).append(COMMA).append(NEW_LINE)
-                                                .append(INDENT).append(INDENTED_QUOTES).append("environt_variables").append(QUOTES).append(COLON).append(CURLY_BRACKET_OPEN).append(NEW_LINE);
-
-                sysInfo.envVariables().entrySet().forEach(entry -> msgBuilder.append(INDENT).append(INDENT).append(INDENT).append(QUOTES).append(entry.getKey()).append(QUOTES).append(COLON).append(QUOTES).append(entry.getValue()).append(QUOTES).append(COMMA_NEW_LINE));
-                if (!sysInfo.envVariables().isEmpty()) { msgBuilder.setLength(msgBuilder.length() - 2); }
-
-                msgBuilder.append(NEW_LINE).append(INDENT).append(INDENT).append(CURLY_BRACKET_CLOSE).append(NEW_LINE)
-                          .append(INDENT).append(CURLY_BRACKET_CLOSE).append(COMMA_NEW_LINE)
-                          .append(INDENTED_QUOTES).append(FIELD_DISTRIBUTIONS).append(QUOTES).append(COLON).append(SQUARE_BRACKET_OPEN).append(NEW_LINE)
-                          .append(distros.stream().map(distro -> distro.toString(OutputType.BEAUTIFIED_JSON)).collect(Collectors.joining(COMMA_NEW_LINE)))
-                          .append(NEW_LINE).append(INDENT).append(SQUARE_BRACKET_CLOSE).append(NEW_LINE)
-                          .append(CURLY_BRACKET_CLOSE);
+        // Aliases are only known at the end of the scan
+        final SysInfo sysInfo        = sysInfoFuture.join();
+        final int     timedOutProbes = finder.getTimedOutProbes() + activeFinder.getTimedOutProbes();
+        synchronized (out) {
+            out.raw(CURLY_BRACKET_OPEN)
+               .name(FIELD_TYPE).string(FIELD_SUMMARY).raw(COMMA)
+               .name(FIELD_TIMESTAMP).number(timestamp).raw(COMMA)
+               .name(FIELD_SEARCH_PATH).string(searchPath).raw(COMMA);
+            if (null != sysInfo) {
+                out.name(FIELD_SYSINFO).raw(CURLY_BRACKET_OPEN)
+                   .name(FIELD_OPERATING_SYSTEM).string(sysInfo.operatingSystem().getUiString()).raw(COMMA)
+                   .name(FIELD_ARCHITECTURE).string(sysInfo.architecture().getUiString()).raw(COMMA)
+                   .name(FIELD_BIT).string(sysInfo.architecture().getBitness().getUiString()).raw(COMMA)
+                   .name(FIELD_HOSTNAME).string(sysInfo.hostname())
+                   .raw(CURLY_BRACKET_CLOSE).raw(COMMA);
             }
-            default -> {
-                msgBuilder = new StringBuilder().append(CURLY_BRACKET_OPEN).append(QUOTES).append(FIELD_TIMESTAMP).append(QUOTES).append(COLON).append(timestamp).append(COMMA)
-                                                .append(QUOTES).append(FIELD_SEARCH_PATH).append(QUOTES).append(COLON).append(QUOTES).append(searchPath.replaceAll("\\\\", "\\\\\\\\")).append(QUOTES).append(COMMA)
-                                                .append(QUOTES).append(FIELD_SYSINFO).append(QUOTES).append(COLON).append(CURLY_BRACKET_OPEN)
-                                                .append(QUOTES).append(FIELD_OPERATING_SYSTEM).append(QUOTES).append(COLON).append(QUOTES).append(sysInfo.operatingSystem().getUiString()).append(QUOTES).append(COMMA)
-                                                .append(QUOTES).append(FIELD_ARCHITECTURE).append(QUOTES).append(COLON).append(QUOTES).append(sysInfo.architecture().getUiString()).append(QUOTES).append(COMMA)
-                                                .append(QUOTES).append(FIELD_BIT).append(QUOTES).append(COLON).append(QUOTES).append(sysInfo.architecture().getBitness().getUiString()).append(QUOTES).append(COMMA)
-                                                .append(QUOTES).append(FIELD_HOSTNAME).append(QUOTES).append(COLON).append(QUOTES).append(sysInfo.hostname()).append(QUOTES).append(COMMA)
-                                                .append(QUOTES).append("environt_variables").append(QUOTES).append(COLON).append(CURLY_BRACKET_OPEN);
-
-                sysInfo.envVariables().entrySet().forEach(entry -> msgBuilder.append(QUOTES).append(entry.getKey()).append(QUOTES).append(COLON).append(QUOTES).append(entry.getValue()).append(QUOTES).append(COMMA));
-                if (!sysInfo.envVariables().isEmpty()) { msgBuilder.setLength(msgBuilder.length() - 1); }
-
-                msgBuilder.append(NEW_LINE).append(CURLY_BRACKET_CLOSE)
-                          .append(CURLY_BRACKET_CLOSE)
-                          .append(COMMA)
-                          .append(QUOTES)
-                          .append(FIELD_DISTRIBUTIONS)
-                          .append(QUOTES)
-                          .append(COLON)
-                          .append(distros.stream().map(distro -> distro.toString(OutputType.JSON)).collect(Collectors.joining(COMMA, SQUARE_BRACKET_OPEN, SQUARE_BRACKET_CLOSE)))
-                          .append(CURLY_BRACKET_CLOSE);
+            out.name(FIELD_DISTRIBUTIONS).number(distros.size()).raw(COMMA);
+            if (fields.contains(OutputField.ALIASES)) {
+                out.name(FIELD_ALIASES).raw(CURLY_BRACKET_OPEN);
+                boolean first = true;
+                for (DistributionInfo distro : distros) {
+                    if (distro.aliases().isEmpty()) { continue; }
+                    if (!first) { out.raw(COMMA); }
+                    out.name(distro.location()).raw(SQUARE_BRACKET_OPEN);
+                    for (int i = 0 ; i < distro.aliases().size() ; i++) {
+                        if (i > 0) { out.raw(COMMA); }
+                        out.string(distro.aliases().get(i));
+                    }
+                    out.raw(SQUARE_BRACKET_CLOSE);
+                    first = false;
+                }
+                out.raw(CURLY_BRACKET_CLOSE).raw(COMMA);
             }
+            out.name(FIELD_TIMED_OUT_PROBES).number(timedOutProbes).raw(COMMA)
+               .name(FIELD_DURATION_MS).number((System.nanoTime() - start) / 1_000_000)
+               .raw(CURLY_BRACKET_CLOSE).raw(NEW_LINE);
+            out.flush();
+        }
+        if (timedOutProbes > 0) {
+            System.err.println(Constants.YELLOW + timedOutProbes + " probe(s) timed out after " + (probeTimeout.toMillis() / 1000.0) + "s" + Constants.RESET_COLOR);
         }
+        if (timings) { printTimings(phaseTimes, start); }
+    }
 
-        // Output
-        if (!distros.isEmpty()) { System.out.println(msgBuilder); }
-        System.exit(0);
+    // Wraps a phase so that its duration ends up in the given map
+    private static <T> Supplier<T> timed(final Map<String, Long> phaseTimes, final String phase, final Supplier<T> supplier) {
+        return () -> {
+            final long start = System.nanoTime();
+            try {
+                return supplier.get();
+            } finally {
+                phaseTimes.put(phase, System.nanoTime() - start);
+            }
+        };
+    }
+    private static <T, R> Function<T, R> timed(final Map<String, Long> phaseTimes, final String phase, final Function<T, R> function) {
+        return input -> timed(phaseTimes, phase, () -> function.apply(input)).get();
+    }
+
+    // The phases overlap, so the total is about the duration of the slowest phase and not the sum of all phases
+    private static void printTimings(final Map<String, Long> phaseTimes, final long start) {
+        final StringBuilder timings = new StringBuilder();
+        for (String phase : PHASES) {
+            if (!phaseTimes.containsKey(phase)) { continue; }
+            timings.append(String.format("%-10s %8.1f ms", phase, phaseTimes.get(phase) / 1_000_000.0)).append(NEW_LINE);
+        }
+        timings.append(String.format("%-10s %8.1f ms", "total", (System.nanoTime() - start) / 1_000_000.0));
+        System.err.println(timings);
+    }
+
+    // Active and scanned distributions are matched by location, equals() also compares fields like fx_bundled that only one of the scans might have checked
+    private static void markActive(final DistributionInfo distro, final DistributionInfo activeDistro) {
+        distro.setActive(true);
+        if (activeDistro.usedBy() != distro.usedBy()) {
+            distro.usedBy().addAll(activeDistro.usedBy());
+        }
+    }
+
+    // Distributions are reported from the probe threads, each line is flushed so that consumers can process it right away
+    private static void println(final OutputWriter out, final DistributionInfo distro, final Set<OutputField> fields) {
+        synchronized (out) {
+            distro.write(out, OutputType.NDJSON, fields);
+            out.raw(NEW_LINE).flush();
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static eu.hansolo.javafinder.Constants.FIELD_ALIASES;
+import static eu.hansolo.javafinder.Constants.FIELD_BUILD_SCOPE;
+import static eu.hansolo.javafinder.Constants.FIELD_DETECTION;
+import static eu.hansolo.javafinder.Constants.FIELD_FX_BUNDLED;
+import static eu.hansolo.javafinder.Constants.FIELD_IN_USE;
+import static eu.hansolo.javafinder.Constants.FIELD_NAME;
+import static eu.hansolo.javafinder.Constants.FIELD_PATH;
+import static eu.hansolo.javafinder.Constants.FIELD_SYSINFO;
+import static eu.hansolo.javafinder.Constants.FIELD_TIMESTAMP;
+import static eu.hansolo.javafinder.Constants.FIELD_USED_BY;
+import static eu.hansolo.javafinder.Constants.FIELD_VENDOR;
+import static eu.hansolo.javafinder.Constants.FIELD_VERSION;
+
+
+// Columns of the output in the order they are written. Attributes that are not requested are not computed:
+// aliases need the symbolic links next to each JDK, in_use and used_by need all running processes,
+// fx_bundled needs the module list of lib/modules and sysinfo needs the hostname and the cpu architecture.
+public enum OutputField {
+    VENDOR("Vendor", FIELD_VENDOR),
+    NAME("Name", FIELD_NAME),
+    VERSION("Version", FIELD_VERSION),
+    TIMESTAMP("Timestamp", FIELD_TIMESTAMP),
+    PATH("Path", FIELD_PATH),
+    ALIASES("Aliases", FIELD_ALIASES),
+    BUILD_SCOPE("Build scope", FIELD_BUILD_SCOPE),
+    DETECTION("Detection", FIELD_DETECTION),
+    IN_USE("In use", FIELD_IN_USE),
+    USED_BY("Used by", FIELD_USED_BY),
+    FX_BUNDLED("JavaFX bundled", FIELD_FX_BUNDLED),
+    SYSINFO("System info", FIELD_SYSINFO),
+    NOT_FOUND("", "");
+
+    // Everything that was written before fields could be selected
+    public static final Set<OutputField> DEFAULT = Collections.unmodifiableSet(EnumSet.of(VENDOR, NAME, VERSION, TIMESTAMP, PATH, ALIASES, BUILD_SCOPE, DETECTION, IN_USE, USED_BY, SYSINFO));
+    public static final Set<OutputField> ALL     = Collections.unmodifiableSet(EnumSet.range(VENDOR, SYSINFO));
+    private      final String            uiString;
+    private      final String            apiString;
+
+
+    // ******************** Constructors **************************************
+    OutputField(final String uiString, final String apiString) {
+        this.uiString  = uiString;
+        this.apiString = apiString;
+    }
+
+
+    // ******************** Methods *******************************************
+    public final String getUiString() { return uiString; }
+
+    public final String getApiString() { return apiString; }
+
+    public static final boolean needsUsage(final Set<OutputField> fields) { return fields.contains(IN_USE) || fields.contains(USED_BY); }
+
+    public static final OutputField fromText(final String text) {
+        if (null == text || text.isEmpty()) { return NOT_FOUND; }
+        for (OutputField field : values()) {
+            if (NOT_FOUND != field && (field.apiString.equals(text) || field.name().equals(text) || field.uiString.equals(text))) { return field; }
+        }
+        return NOT_FOUND;
+    }
+}
@@ -17,14 +17,16 @@
 package eu.hansolo.javafinder;
 
 public enum OutputType {
-    BEAUTIFIED_JSON, JSON, CSV, NOT_FOUND;
+    BEAUTIFIED_JSON, JSON, NDJSON, CSV, BINARY, NOT_FOUND;
 
     public static final OutputType fromText(final String text) {
         if (null == text || text.isEmpty()) { return NOT_FOUND; }
         switch(text) {
             case "json", "JSON", "Json"               -> { return BEAUTIFIED_JSON; }
             case "beautified_json", "BEAUTIFIED_JSON" -> { return BEAUTIFIED_JSON; }
+            case "ndjson", "NDJSON"                   -> { return NDJSON; }
             case "csv", "CSV"                         -> { return CSV; }
+            case "binary", "BINARY"                   -> { return BINARY; }
             default                                   -> { return NOT_FOUND; }
         }
     }
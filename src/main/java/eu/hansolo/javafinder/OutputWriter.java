@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import static eu.hansolo.jdktools.Constants.COLON;
+import static eu.hansolo.jdktools.Constants.INDENT;
+import static eu.hansolo.jdktools.Constants.QUOTES;
+
+
+// Writes json and csv directly to a buffered writer, strings are escaped in one pass without regex and without
+// creating intermediate strings. Write errors are thrown as UncheckedIOException so that calls can be chained.
+public class OutputWriter implements Closeable, Flushable {
+    public  static final int    BUFFER_SIZE   = 64 * 1024;
+    private static final char[] HEX_DIGITS    = "0123456789abcdef".toCharArray();
+    private        final Writer writer;
+    private        final char[] numberBuffer  = new char[20];
+    private        final char[] unicodeEscape = { '\\', 'u', '0', '0', '0', '0' };
+
+
+    // ******************** Constructors **************************************
+    public OutputWriter(final Writer writer) {
+        if (null == writer) { throw new IllegalArgumentException("writer cannot be null"); }
+        this.writer = writer;
+    }
+
+
+    // ******************** Methods *******************************************
+    public static OutputWriter of(final OutputStream outputStream) {
+        return new OutputWriter(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+    public static OutputWriter of(final FileChannel channel) {
+        return new OutputWriter(new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    // Writes the given text as is
+    public OutputWriter raw(final String text) {
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+    public OutputWriter raw(final String text, final int start) {
+        try {
+            writer.write(text, start, text.length() - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+    public OutputWriter raw(final char character) {
+        try {
+            writer.write(character);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    public OutputWriter indent(final int level) {
+        for (int i = 0 ; i < level ; i++) { raw(INDENT); }
+        return this;
+    }
+
+    public OutputWriter number(final long number) {
+        if (Long.MIN_VALUE == number) { return raw(Long.toString(number)); }
+        long value = Math.abs(number);
+        int  pos   = numberBuffer.length;
+        do {
+            numberBuffer[--pos] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        if (number < 0) { numberBuffer[--pos] = '-'; }
+        try {
+            writer.write(numberBuffer, pos, numberBuffer.length - pos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    public OutputWriter bool(final boolean value) { return raw(value ? "true" : "false"); }
+
+    // Writes "name":
+    public OutputWriter name(final String name) { return string(name).raw(COLON); }
+
+    // Writes the text as quoted json string, quotes, backslashes and control characters are escaped
+    public OutputWriter string(final String text) {
+        raw(QUOTES);
+        if (null == text) { return raw(QUOTES); }
+        try {
+            final int length = text.length();
+            int       start  = 0;
+            for (int i = 0 ; i < length ; i++) {
+                final char c = text.charAt(i);
+                if (c >= 0x20 && c != '"' && c != '\\') { continue; }
+                if (i > start) { writer.write(text, start, i - start); }
+                switch (c) {
+                    case '"'  -> writer.write("\\\"");
+                    case '\\' -> writer.write("\\\\");
+                    case '\n' -> writer.write("\\n");
+                    case '\r' -> writer.write("\\r");
+                    case '\t' -> writer.write("\\t");
+                    case '\b' -> writer.write("\\b");
+                    case '\f' -> writer.write("\\f");
+                    default   -> {
+                        unicodeEscape[4] = HEX_DIGITS[(c >> 4) & 0xF];
+                        unicodeEscape[5] = HEX_DIGITS[c & 0xF];
+                        writer.write(unicodeEscape);
+                    }
+                }
+                start = i + 1;
+            }
+            if (length > start) { writer.write(text, start, length - start); }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return raw(QUOTES);
+    }
+
+    // Writes the text as csv field (RFC 4180), it will only be quoted if it contains a separator, a quote or a line break
+    public OutputWriter csv(final String text) {
+        if (null == text) { return this; }
+        final int length = text.length();
+        int       first  = 0;
+        while (first < length && !needsCsvQuotes(text.charAt(first))) { first++; }
+        if (first == length) { return raw(text); }
+        try {
+            writer.write('"');
+            int start = 0;
+            for (int i = first ; i < length ; i++) {
+                if (text.charAt(i) != '"') { continue; }
+                writer.write(text, start, i + 1 - start);
+                writer.write('"');
+                start = i + 1;
+            }
+            if (length > start) { writer.write(text, start, length - start); }
+            writer.write('"');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    @Override public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean needsCsvQuotes(final char c) { return c == ',' || c == '"' || c == '\n' || c == '\r'; }
+}
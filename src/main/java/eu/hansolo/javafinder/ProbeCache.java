@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import eu.hansolo.jdktools.scopes.BuildScope;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+// Persistent cache of probe results keyed by the path of the java executable.
+// An entry is only valid as long as file key, size and modification time of bin/java and the release file did not change.
+public class ProbeCache {
+    public  static final String             CACHE_FOLDER_NAME = "javafinder";
+    private static final String             CACHE_FILE_NAME   = "probes.cache";
+    private static final String             HEADER            = "javafinder-probe-cache 2";
+    private static final String             RELEASE_FILE      = "release";
+    private static final char               SEPARATOR         = '\t';
+    private static final int                NO_OF_FIELDS      = 14;
+    private        final Path               cacheFile;
+    private        final Map<String, Entry> entries           = new ConcurrentHashMap<>();
+    private        volatile boolean         loaded            = false;
+    private        volatile boolean         dirty             = false;
+
+
+    // ******************** Constructors **************************************
+    public ProbeCache() {
+        this(getDefaultCacheFolder());
+    }
+    public ProbeCache(final Path cacheFolder) {
+        this.cacheFile = cacheFolder.resolve(CACHE_FILE_NAME);
+    }
+
+
+    // ******************** Methods *******************************************
+    public Path getCacheFile() { return cacheFile; }
+
+    public Optional<DistributionInfo> get(final String java) {
+        load();
+        final Entry entry = entries.get(java);
+        if (null == entry) { return Optional.empty(); }
+        final String identity = identityOf(java);
+        if (null == identity || !identity.equals(entry.identity())) {
+            entries.remove(java);
+            dirty = true;
+            return Optional.empty();
+        }
+        return Optional.of(entry.distributionInfo());
+    }
+
+    // Paths of all cached java executables, the entries are validated by get()
+    public List<String> getExecutables() {
+        load();
+        return List.copyOf(entries.keySet());
+    }
+
+    public void put(final String java, final DistributionInfo distributionInfo) {
+        final String identity = identityOf(java);
+        if (null == identity || null == distributionInfo) { return; }
+        load();
+        entries.put(java, new Entry(identity, distributionInfo));
+        dirty = true;
+    }
+
+    public void clear() {
+        entries.clear();
+        loaded = true;
+        dirty  = true;
+    }
+
+    public synchronized void load() {
+        if (loaded) { return; }
+        loaded = true;
+        if (!Files.isReadable(cacheFile)) { return; }
+        try (BufferedReader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) { return; }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final List<String> fields = split(line);
+                if (fields.size() != NO_OF_FIELDS) { continue; }
+                try {
+                    final DistributionInfo distributionInfo = new DistributionInfo(Instant.now(), Distribution.valueOf(fields.get(2)), fields.get(3), fields.get(4), fields.get(5), fields.get(6),
+                                                                                   fields.get(7), fields.get(8), Boolean.parseBoolean(fields.get(9)), fields.get(10), fields.get(11),
+                                                                                   BuildScope.valueOf(fields.get(12)), false, new ArrayList<>(), DetectionMethod.valueOf(fields.get(13)));
+                    entries.put(fields.get(0), new Entry(fields.get(1), distributionInfo));
+                } catch (IllegalArgumentException e) {
+                    // Entry written by an incompatible version, skip it
+                }
+            }
+        } catch (IOException e) {
+            entries.clear();
+        }
+    }
+
+    // Writes the cache to a temp file first and moves it in place, entries of removed JDKs are dropped
+    public synchronized void save() {
+        if (!dirty) { return; }
+        Path tmpFile = null;
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            tmpFile = Files.createTempFile(cacheFile.getParent(), CACHE_FILE_NAME, ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                    if (!Files.exists(Paths.get(mapEntry.getKey()))) { continue; }
+                    final DistributionInfo info = mapEntry.getValue().distributionInfo();
+                    final StringBuilder    line = new StringBuilder();
+                    append(line, mapEntry.getKey()).append(SEPARATOR);
+                    append(line, mapEntry.getValue().identity()).append(SEPARATOR);
+                    append(line, info.distribution().name()).append(SEPARATOR);
+                    append(line, info.name()).append(SEPARATOR);
+                    append(line, info.apiString()).append(SEPARATOR);
+                    append(line, info.version()).append(SEPARATOR);
+                    append(line, info.jdkMajorVersion()).append(SEPARATOR);
+                    append(line, info.operatingSystem()).append(SEPARATOR);
+                    append(line, info.architecture()).append(SEPARATOR);
+                    append(line, Boolean.toString(info.fxBundled())).append(SEPARATOR);
+                    append(line, info.location()).append(SEPARATOR);
+                    append(line, info.feature()).append(SEPARATOR);
+                    append(line, info.buildScope().name()).append(SEPARATOR);
+                    append(line, info.detectionMethod().name());
+                    writer.write(line.toString());
+                    writer.newLine();
+                }
+            }
+            Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException | UnsupportedOperationException e) {
+            // Cache is optional, a read only home folder should not break the scan
+            try {
+                if (null != tmpFile) { Files.deleteIfExists(tmpFile); }
+            } catch (IOException ex) { /* Nothing left to do */ }
+        }
+    }
+
+    public static Path getDefaultCacheFolder() {
+        final String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+        if (null != xdgCacheHome && !xdgCacheHome.isEmpty()) { return Paths.get(xdgCacheHome, CACHE_FOLDER_NAME); }
+        return Paths.get(System.getProperty("user.home"), ".cache", CACHE_FOLDER_NAME);
+    }
+
+    // File key (inode on unix), size and modification time of bin/java and the release file of the JDK
+    public static String identityOf(final String java) {
+        try {
+            final Path                javaPath    = Paths.get(java);
+            final BasicFileAttributes javaAttrs   = Files.readAttributes(javaPath, BasicFileAttributes.class);
+            final StringBuilder       identity    = new StringBuilder().append(javaAttrs.fileKey()).append('|').append(javaAttrs.size()).append('|').append(javaAttrs.lastModifiedTime().toMillis());
+            final Path                binFolder   = javaPath.getParent();
+            final Path                homeFolder  = null == binFolder ? null : binFolder.getParent();
+            final Path                releaseFile = null == homeFolder ? null : homeFolder.resolve(RELEASE_FILE);
+            if (null != releaseFile && Files.exists(releaseFile)) {
+                final BasicFileAttributes releaseAttrs = Files.readAttributes(releaseFile, BasicFileAttributes.class);
+                identity.append('|').append(releaseAttrs.size()).append('|').append(releaseAttrs.lastModifiedTime().toMillis());
+            } else {
+                identity.append("|-");
+            }
+            return identity.toString();
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static StringBuilder append(final StringBuilder builder, final String text) {
+        if (null == text) { return builder; }
+        for (int i = 0 ; i < text.length() ; i++) {
+            final char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> builder.append("\\\\");
+                case '\t' -> builder.append("\\t");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                default   -> builder.append(c);
+            }
+        }
+        return builder;
+    }
+
+    private static List<String> split(final String line) {
+        final List<String>  fields  = new ArrayList<>(NO_OF_FIELDS);
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0 ; i < line.length() ; i++) {
+            final char c = line.charAt(i);
+            if (c == SEPARATOR) {
+                fields.add(builder.toString());
+                builder.setLength(0);
+            } else if (c == '\\' && i + 1 < line.length()) {
+                final char next = line.charAt(++i);
+                switch (next) {
+                    case 't' -> builder.append('\t');
+                    case 'n' -> builder.append('\n');
+                    case 'r' -> builder.append('\r');
+                    default  -> builder.append(next);
+                }
+            } else {
+                builder.append(c);
+            }
+        }
+        fields.add(builder.toString());
+        return fields;
+    }
+
+
+    private record Entry(String identity, DistributionInfo distributionInfo) {}
+}
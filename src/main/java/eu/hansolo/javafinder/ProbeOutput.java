@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+// Output of a java probe (lines joined by |) split into the java -version lines and the system properties
+// that are printed in front of them if the probe was started with -XshowSettings:properties.
+public record ProbeOutput(String versionOutput, Map<String, String> properties) {
+    private static final String PROPERTY_INDENT    = "    ";
+    private static final String PROPERTY_SEPARATOR = " = ";
+
+
+    // ******************** Constructors **************************************
+    public ProbeOutput {
+        properties = null == properties ? Map.of() : Map.copyOf(properties);
+    }
+
+
+    // ******************** Methods *******************************************
+    public static ProbeOutput parse(final String output) {
+        final Map<String, String> properties    = new HashMap<>();
+        final StringBuilder       versionOutput = new StringBuilder();
+        for (String line : output.split("\\|")) {
+            if (line.isBlank() || line.startsWith("Property settings:") || line.startsWith("Picked up ")) { continue; }
+            if (line.startsWith(PROPERTY_INDENT)) {
+                // Continuation lines of multi value properties (e.g. java.library.path) are indented twice
+                final int separator = line.indexOf(PROPERTY_SEPARATOR);
+                if (separator > 0 && !line.startsWith(PROPERTY_INDENT + PROPERTY_INDENT)) {
+                    properties.put(line.substring(0, separator).trim(), line.substring(separator + PROPERTY_SEPARATOR.length()).trim());
+                }
+                continue;
+            }
+            if (versionOutput.length() > 0) { versionOutput.append("|"); }
+            versionOutput.append(line);
+        }
+        return new ProbeOutput(versionOutput.toString(), properties);
+    }
+
+    // True if the jvm refused to start, e.g. because it doesn't know one of the probe flags
+    public static boolean isRejected(final String output) {
+        return null == output || output.contains("Could not create the Java Virtual Machine") || output.contains("Unrecognized option") ||
+               output.contains("Unrecognized VM option") || output.contains("JVMJ9VM007E");
+    }
+
+    public String getProperty(final String key) { return properties.getOrDefault(key, ""); }
+}
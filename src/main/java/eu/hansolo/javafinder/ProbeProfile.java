@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+// JVM flags that are passed to java -version, a probe only needs a few MB of heap and no optimizing JIT.
+// Each flag is only passed to JDKs that know it, OpenJ9 gets no HotSpot specific flags.
+public enum ProbeProfile {
+    PLAIN("Plain", "plain", List.of()),
+    LIGHT("Light", "light", List.of(new ProbeFlag("-Xshare:auto", 6, true),
+                                    new ProbeFlag("-XX:TieredStopAtLevel=1", 7, true),
+                                    new ProbeFlag("-XX:+UseSerialGC", 6, true),
+                                    new ProbeFlag("-XX:-UsePerfData", 9, true), // Stalls JDK 8 for seconds now and then
+                                    new ProbeFlag("-Xmx16m", 1, false))),
+    NOT_FOUND("", "", List.of());
+
+    public  static final int             UNKNOWN_MAJOR_VERSION = 0;
+    public  static final String          SHOW_SETTINGS         = "-XshowSettings:properties";
+    private static final int             SHOW_SETTINGS_SINCE   = 7;
+    // If the version is unknown only flags that every JDK still in use understands will be passed
+    private static final int             SAFE_MAJOR_VERSION    = 6;
+    private        final String          uiString;
+    private        final String          apiString;
+    private        final List<ProbeFlag> flags;
+
+
+    // ******************** Constructors **************************************
+    ProbeProfile(final String uiString, final String apiString, final List<ProbeFlag> flags) {
+        this.uiString  = uiString;
+        this.apiString = apiString;
+        this.flags     = flags;
+    }
+
+
+    // ******************** Methods *******************************************
+    public final String getUiString() { return uiString; }
+
+    public final String getApiString() { return apiString; }
+
+    public final List<ProbeFlag> getFlags() { return flags; }
+
+    public final List<String> getCommand(final String java, final int majorVersion, final boolean openJ9, final boolean showSettings) {
+        final int          version = UNKNOWN_MAJOR_VERSION == majorVersion ? SAFE_MAJOR_VERSION : majorVersion;
+        final List<String> command = new ArrayList<>();
+        command.add(java);
+        for (ProbeFlag flag : flags) {
+            if (version >= flag.sinceMajorVersion() && !(openJ9 && flag.hotSpotOnly())) { command.add(flag.flag()); }
+        }
+        if (showSettings && version >= SHOW_SETTINGS_SINCE) { command.add(SHOW_SETTINGS); }
+        command.add("-version");
+        return command;
+    }
+
+    // Major version from the JAVA_VERSION of a release file (e.g. 1.8.0_392 or 17.0.9)
+    public static final int majorVersionOf(final String javaVersion) {
+        if (null == javaVersion || javaVersion.isEmpty()) { return UNKNOWN_MAJOR_VERSION; }
+        final String version = javaVersion.startsWith("1.") ? javaVersion.substring(2) : javaVersion;
+        int majorVersion = 0;
+        for (int i = 0 ; i < version.length() && Character.isDigit(version.charAt(i)) ; i++) {
+            majorVersion = majorVersion * 10 + (version.charAt(i) - '0');
+        }
+        return majorVersion;
+    }
+
+    public static final ProbeProfile fromText(final String text) {
+        if (null == text || text.isEmpty()) { return NOT_FOUND; }
+        switch(text) {
+            case "plain", "PLAIN", "Plain" -> { return PLAIN; }
+            case "light", "LIGHT", "Light" -> { return LIGHT; }
+            default                        -> { return NOT_FOUND; }
+        }
+    }
+
+
+    public record ProbeFlag(String flag, int sinceMajorVersion, boolean hotSpotOnly) {}
+}
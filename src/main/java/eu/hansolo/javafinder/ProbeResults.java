@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+// Classifications of the current run keyed by the canonical JDK home. A finder shares them with its copies, so a JDK that is found
+// by more than one scan (e.g. running and installed) is classified and probed only once. Unlike the ProbeCache nothing is persisted
+// and the entries are not validated again, they live as long as the finder.
+public class ProbeResults {
+    private final Map<Path, CompletableFuture<Result>> results = new ConcurrentHashMap<>();
+
+
+    // ******************** Constructors **************************************
+    public ProbeResults() { }
+
+
+    // ******************** Methods *******************************************
+    // Null if the caller is the first one for the home, it then has to classify the JDK and call complete(), otherwise the result of the first caller
+    public CompletableFuture<Result> claim(final Path home) {
+        return results.putIfAbsent(home, new CompletableFuture<>());
+    }
+
+    // Only the first call per home counts, distributionInfo is null if the JDK could not be classified
+    public void complete(final Path home, final DistributionInfo distributionInfo, final boolean fxBundledChecked) {
+        if (null == home) { return; }
+        final CompletableFuture<Result> result = results.get(home);
+        if (null != result) { result.complete(new Result(distributionInfo, fxBundledChecked)); }
+    }
+
+    public int size() { return results.size(); }
+
+    // The JDK home with all symbolic links resolved, null if it can't be resolved
+    public static Path homeOf(final Path java) {
+        try {
+            final Path bin = java.toRealPath().getParent();
+            return null == bin ? null : bin.getParent();
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+
+
+    // fxBundledChecked is false if the classification skipped the check for JavaFX modules (see Finder.classify())
+    public record Result(DistributionInfo distributionInfo, boolean fxBundledChecked) { }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+
+// Runs external commands (e.g. java -version) on a bounded pool and hands their output (lines joined by |) to a consumer.
+// Each probe has its own timeout, a probe that takes longer is destroyed together with its child processes and counted.
+// Submitting blocks while MAX_PENDING_PROBES probes are queued or running, consumers must not submit probes themselves.
+public class ProbeScheduler {
+    public  static final int                      DEFAULT_CONCURRENCY = Runtime.getRuntime().availableProcessors();
+    public  static final Duration                 DEFAULT_TIMEOUT     = Duration.ofSeconds(10);
+    public  static final int                      MAX_PENDING_PROBES  = 64;
+    private        final ThreadPoolExecutor       executor;
+    private        final ScheduledExecutorService watchdog;
+    private        final AtomicInteger            timedOutProbes      = new AtomicInteger(0);
+    private        final Semaphore                pendingProbes       = new Semaphore(MAX_PENDING_PROBES);
+    private volatile     Duration                 timeout;
+
+
+    // ******************** Constructors **************************************
+    public ProbeScheduler() {
+        this(DEFAULT_CONCURRENCY, DEFAULT_TIMEOUT);
+    }
+    public ProbeScheduler(final int concurrency, final Duration timeout) {
+        if (concurrency < 1) { throw new IllegalArgumentException("concurrency must be at least 1"); }
+        this.timeout  = checkTimeout(timeout);
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), daemonThreadFactory("javafinder-probe-"));
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("javafinder-probe-watchdog-"));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+
+    // ******************** Methods *******************************************
+    public int getConcurrency() { return executor.getMaximumPoolSize(); }
+    public void setConcurrency(final int concurrency) {
+        if (concurrency < 1) { throw new IllegalArgumentException("concurrency must be at least 1"); }
+        if (concurrency > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(concurrency);
+            executor.setCorePoolSize(concurrency);
+        } else {
+            executor.setCorePoolSize(concurrency);
+            executor.setMaximumPoolSize(concurrency);
+        }
+    }
+
+    public Duration getTimeout() { return timeout; }
+    public void setTimeout(final Duration timeout) { this.timeout = checkTimeout(timeout); }
+
+    public int getTimedOutProbes() { return timedOutProbes.get(); }
+
+    public boolean isShutdown() { return executor.isShutdown(); }
+
+    public void submit(final List<String> command, final Consumer<String> consumer) {
+        submit(command, consumer, () -> { });
+    }
+    // onCompletion is called after the consumer, also if the probe failed or timed out
+    public void submit(final List<String> command, final Consumer<String> consumer, final Runnable onCompletion) {
+        // Every probe is bounded by its timeout, so waiting for a free slot is bounded too
+        pendingProbes.acquireUninterruptibly();
+        try {
+            executor.execute(() -> {
+                try {
+                    execute(command).ifPresent(consumer);
+                } finally {
+                    pendingProbes.release();
+                    onCompletion.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            pendingProbes.release();
+            throw e;
+        }
+    }
+
+    // Waits until all submitted probes either delivered their output or timed out, there is no global deadline
+    public void awaitCompletion() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) { /* Every probe is bounded by its own timeout */ }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            watchdog.shutdownNow();
+        }
+    }
+
+    // Runs the command in the calling thread with the same timeout as submitted probes, empty if it failed or timed out
+    public Optional<String> execute(final List<String> command) {
+        final Process process;
+        try {
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        } catch (IOException | RuntimeException e) {
+            // Not allowed to execute the command
+            return Optional.empty();
+        }
+        final AtomicBoolean      killed = new AtomicBoolean(false);
+        final ScheduledFuture<?> kill   = watchdog.schedule(() -> {
+            killed.set(true);
+            destroy(process);
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        String output;
+        try {
+            output = readOutput(process.getInputStream());
+            process.waitFor();
+        } catch (IOException e) {
+            output = null;
+        } catch (InterruptedException e) {
+            destroy(process);
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } finally {
+            kill.cancel(false);
+        }
+        if (killed.get()) {
+            timedOutProbes.incrementAndGet();
+            return Optional.empty();
+        }
+        return Optional.ofNullable(output);
+    }
+
+    private static String readOutput(final InputStream inputStream) throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
+            String line;
+            while ((line = reader.readLine()) != null) { builder.append(line).append("|"); }
+        }
+        if (builder.length() > 0) {
+            builder.setLength(builder.length() - 1);
+        }
+        return builder.toString();
+    }
+
+    private static void destroy(final Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private static Duration checkTimeout(final Duration timeout) {
+        if (null == timeout || timeout.isNegative() || timeout.isZero()) { throw new IllegalArgumentException("timeout must be positive"); }
+        return timeout;
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String prefix) {
+        final AtomicInteger counter = new AtomicInteger(0);
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
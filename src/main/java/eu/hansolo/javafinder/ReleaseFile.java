@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+// The keys of a JDK release file the classifier is interested in, values are unquoted and empty if missing.
+// The file is parsed straight from its bytes, only the values of known keys end up as strings and there is
+// no shared state, so it can be used from any number of probe threads.
+public record ReleaseFile(String implementor, String implementorVersion, String javaVersion, String javaRuntimeVersion, String jvmVersion, String jvmVariant,
+                          String osName, String osArch, String buildType, String vendor, String graalvmVersion, String sunArchAbi, String modules) {
+    public  static final ReleaseFile EMPTY            = new ReleaseFile("", "", "", "", "", "", "", "", "", "", "", "", "");
+    public  static final String      FILE_NAME        = "release";
+    private static final int         MAX_SIZE         = 1024 * 1024;
+    private static final byte[][]    KEYS             = {
+        ascii("IMPLEMENTOR"), ascii("IMPLEMENTOR_VERSION"), ascii("JAVA_VERSION"), ascii("JAVA_RUNTIME_VERSION"), ascii("JVM_VERSION"), ascii("JVM_VARIANT"),
+        ascii("OS_NAME"), ascii("OS_ARCH"), ascii("BUILD_TYPE"), ascii("VENDOR"), ascii("GRAALVM_VERSION"), ascii("SUN_ARCH_ABI"), ascii("MODULES")
+    };
+
+
+    // ******************** Constructors **************************************
+    public ReleaseFile {
+        implementor        = null == implementor        ? "" : implementor;
+        implementorVersion = null == implementorVersion ? "" : implementorVersion;
+        javaVersion        = null == javaVersion        ? "" : javaVersion;
+        javaRuntimeVersion = null == javaRuntimeVersion ? "" : javaRuntimeVersion;
+        jvmVersion         = null == jvmVersion         ? "" : jvmVersion;
+        jvmVariant         = null == jvmVariant         ? "" : jvmVariant;
+        osName             = null == osName             ? "" : osName;
+        osArch             = null == osArch             ? "" : osArch;
+        buildType          = null == buildType          ? "" : buildType;
+        vendor             = null == vendor             ? "" : vendor;
+        graalvmVersion     = null == graalvmVersion     ? "" : graalvmVersion;
+        sunArchAbi         = null == sunArchAbi         ? "" : sunArchAbi;
+        modules            = null == modules            ? "" : modules;
+    }
+
+
+    // ******************** Methods *******************************************
+    public boolean isEmpty() { return this.equals(EMPTY); }
+
+    public static ReleaseFile read(final Path releaseFile) {
+        try {
+            if (Files.size(releaseFile) > MAX_SIZE) { return EMPTY; }
+            return parse(Files.readAllBytes(releaseFile));
+        } catch (IOException | RuntimeException e) {
+            return EMPTY;
+        }
+    }
+
+    // Parses KEY="value" lines, comments and unknown keys are skipped without creating strings
+    public static ReleaseFile parse(final byte[] bytes) {
+        final String[] values = new String[KEYS.length];
+        final int      length = bytes.length;
+        int            pos    = 0;
+        while (pos < length) {
+            int lineEnd = pos;
+            while (lineEnd < length && bytes[lineEnd] != '\n' && bytes[lineEnd] != '\r') { lineEnd++; }
+
+            int keyStart = skipWhitespace(bytes, pos, lineEnd);
+            if (keyStart < lineEnd && bytes[keyStart] != '#' && bytes[keyStart] != '!') {
+                int separator = keyStart;
+                while (separator < lineEnd && bytes[separator] != '=' && bytes[separator] != ':') { separator++; }
+                int keyEnd = separator;
+                while (keyEnd > keyStart && isWhitespace(bytes[keyEnd - 1])) { keyEnd--; }
+                final int keyIndex = indexOfKey(bytes, keyStart, keyEnd);
+                if (keyIndex >= 0 && separator < lineEnd) {
+                    int valueStart = skipWhitespace(bytes, separator + 1, lineEnd);
+                    int valueEnd   = lineEnd;
+                    while (valueEnd > valueStart && isWhitespace(bytes[valueEnd - 1])) { valueEnd--; }
+                    if (valueEnd - valueStart >= 2 && bytes[valueStart] == '"' && bytes[valueEnd - 1] == '"') {
+                        valueStart++;
+                        valueEnd--;
+                    }
+                    values[keyIndex] = new String(bytes, valueStart, valueEnd - valueStart, StandardCharsets.ISO_8859_1).trim();
+                }
+            }
+            pos = lineEnd + 1;
+        }
+        return new ReleaseFile(values[0], values[1], values[2], values[3], values[4], values[5], values[6], values[7], values[8], values[9], values[10], values[11], values[12]);
+    }
+
+    private static int indexOfKey(final byte[] bytes, final int start, final int end) {
+        final int keyLength = end - start;
+        for (int i = 0 ; i < KEYS.length ; i++) {
+            final byte[] key = KEYS[i];
+            if (key.length != keyLength) { continue; }
+            int j = 0;
+            while (j < keyLength && key[j] == bytes[start + j]) { j++; }
+            if (j == keyLength) { return i; }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(final byte[] bytes, final int start, final int end) {
+        int pos = start;
+        while (pos < end && isWhitespace(bytes[pos])) { pos++; }
+        return pos;
+    }
+
+    private static boolean isWhitespace(final byte b) { return b == ' ' || b == '\t' || b == '\f'; }
+
+    private static byte[] ascii(final String text) { return text.getBytes(StandardCharsets.US_ASCII); }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+public record ScanOptions(int maxDepth, Set<String> excludedFileStoreTypes, List<String> excludeGlobs, boolean pruneJdkHomes) {
+    public static final Set<String> PSEUDO_FILE_STORE_TYPES           = Set.of("proc", "sysfs", "devtmpfs", "devpts", "devfs", "tmpfs", "ramfs", "cgroup", "cgroup2", "securityfs",
+                                                                               "debugfs", "tracefs", "pstore", "bpf", "configfs", "fusectl", "mqueue", "hugetlbfs", "autofs",
+                                                                               "binfmt_misc", "efivarfs", "rpc_pipefs", "nsfs", "overlay");
+    public static final Set<String> REMOTE_FILE_STORE_TYPES           = Set.of("nfs", "nfs4", "cifs", "smbfs", "smb3", "afpfs", "webdav", "afs", "ncpfs", "fuse.sshfs",
+                                                                               "glusterfs", "fuse.glusterfs", "ceph", "fuse.ceph", "lustre", "davfs", "fuse.davfs2");
+    public static final Set<String> DEFAULT_EXCLUDED_FILE_STORE_TYPES = Stream.concat(PSEUDO_FILE_STORE_TYPES.stream(), REMOTE_FILE_STORE_TYPES.stream()).collect(Collectors.toUnmodifiableSet());
+    public static final ScanOptions DEFAULT                           = new ScanOptions(Integer.MAX_VALUE, DEFAULT_EXCLUDED_FILE_STORE_TYPES, List.of(), true);
+    public static final ScanOptions ALL                               = new ScanOptions(Integer.MAX_VALUE, Set.of(), List.of(), false);
+
+
+    // ******************** Constructors **************************************
+    public ScanOptions {
+        if (maxDepth < 0) { throw new IllegalArgumentException("maxDepth cannot be negative"); }
+        excludedFileStoreTypes = null == excludedFileStoreTypes ? Set.of() : Set.copyOf(excludedFileStoreTypes);
+        excludeGlobs           = null == excludeGlobs           ? List.of() : List.copyOf(excludeGlobs);
+    }
+}
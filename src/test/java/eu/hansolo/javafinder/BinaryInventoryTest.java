@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import eu.hansolo.jdktools.scopes.BuildScope;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class BinaryInventoryTest {
+    private static final Instant TIMESTAMP = Instant.ofEpochMilli(1_700_000_000_000L);
+
+
+    // ******************** Tests *********************************************
+    @Test public void roundTrip() throws IOException {
+        final DistributionInfo temurin = new DistributionInfo(TIMESTAMP, Distribution.TEMURIN, "Temurin", "temurin", "21.0.1", "21", "linux", "x64", false, "/usr/lib/jvm/temurin-21/", "",
+                                                              BuildScope.BUILD_OF_OPEN_JDK, true, List.of("/usr/lib/jvm/temurin-21/bin/java -jar app.jar"), DetectionMethod.RELEASE_FILE);
+        temurin.aliases().add("/usr/lib/jvm/default-java/");
+        final DistributionInfo zulu    = new DistributionInfo(TIMESTAMP, Distribution.ZULU, "Zulu", "zulu", "17.0.9", "17", "linux", "aarch64", true, "/opt/zulu-17/", "",
+                                                              BuildScope.BUILD_OF_OPEN_JDK, false, List.of(), DetectionMethod.JAVA_VERSION);
+        final BinaryInventory  read    = BinaryInventory.read(new ByteArrayInputStream(write(new BinaryInventory(42, "/", "Linux", "x64", "host", List.of(temurin, zulu)))));
+
+        assertEquals(42, read.timestamp());
+        assertEquals("/", read.searchPath());
+        assertEquals("Linux", read.operatingSystem());
+        assertEquals("x64", read.architecture());
+        assertEquals("host", read.hostname());
+        assertEquals(List.of(temurin, zulu), read.distributions());
+
+        final DistributionInfo first = read.distributions().get(0);
+        assertEquals(TIMESTAMP, first.timestamp());
+        assertTrue(first.active());
+        assertEquals(List.of("/usr/lib/jvm/temurin-21/bin/java -jar app.jar"), first.usedBy());
+        assertEquals(List.of("/usr/lib/jvm/default-java/"), first.aliases());
+        assertEquals(DetectionMethod.RELEASE_FILE, first.detectionMethod());
+
+        final DistributionInfo second = read.distributions().get(1);
+        assertTrue(second.fxBundled());
+        assertFalse(second.active());
+        assertTrue(second.usedBy().isEmpty());
+        assertTrue(second.aliases().isEmpty());
+        assertEquals(DetectionMethod.JAVA_VERSION, second.detectionMethod());
+    }
+
+    @Test public void emptyInventory() throws IOException {
+        final BinaryInventory read = BinaryInventory.read(new ByteArrayInputStream(write(new BinaryInventory(42, "/", "Linux", "x64", "host", List.of()))));
+        assertEquals("host", read.hostname());
+        assertTrue(read.distributions().isEmpty());
+    }
+
+    @Test public void emptyInput() {
+        assertThrows(IOException.class, () -> BinaryInventory.read(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test public void wrongMagic() throws IOException {
+        final byte[] bytes = write(new BinaryInventory(42, "/", "Linux", "x64", "host", List.of()));
+        bytes[0] = 'X';
+        assertThrows(IOException.class, () -> BinaryInventory.read(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test public void truncatedHeader() throws IOException {
+        final byte[] bytes = write(new BinaryInventory(42, "/", "Linux", "x64", "host", List.of()));
+        assertThrows(IOException.class, () -> BinaryInventory.read(new ByteArrayInputStream(Arrays.copyOf(bytes, 20))));
+    }
+
+    @Test public void truncatedRecord() throws IOException {
+        final byte[] bytes = write(new BinaryInventory(42, "/", "Linux", "x64", "host", List.of(distribution())));
+        assertThrows(IOException.class, () -> BinaryInventory.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1))));
+    }
+
+    // Counts in the header must not be used to allocate memory before the data was read
+    @Test public void hugeCountsInHeader() {
+        final ByteBuffer header = ByteBuffer.allocate(64).put(new byte[] { 'J', 'F', 'B', 'I' }).putShort((short) 1).putShort((short) 0).putLong(0)
+                                            .putInt(0x7FFFFFF0).putInt(0x7FFFFFF0).putInt(0x7FFFFFF0);
+        assertThrows(IOException.class, () -> BinaryInventory.read(new ByteArrayInputStream(header.array())));
+    }
+
+    @Test public void hugeStringLength() {
+        final ByteBuffer header = ByteBuffer.allocate(64).put(new byte[] { 'J', 'F', 'B', 'I' }).putShort((short) 1).putShort((short) 0).putLong(0)
+                                            .putInt(1).putInt(0).putInt(0).putInt(0).putInt(0).putInt(0).putInt(0).putInt(0x7FFFFFF0);
+        assertThrows(IOException.class, () -> BinaryInventory.read(new ByteArrayInputStream(header.array())));
+    }
+
+    // The used_by count of the last record points far behind the list table
+    @Test public void listRangeOutOfBounds() throws IOException {
+        final byte[] bytes = write(new BinaryInventory(42, "/", "Linux", "x64", "host", List.of(distribution())));
+        ByteBuffer.wrap(bytes).putInt(bytes.length - BinaryInventory.RECORD_SIZE + 11 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES, 0x7FFFFFF0);
+        assertThrows(IOException.class, () -> BinaryInventory.read(new ByteArrayInputStream(bytes)));
+    }
+
+
+    // ******************** Methods *******************************************
+    private static DistributionInfo distribution() {
+        return new DistributionInfo(TIMESTAMP, Distribution.TEMURIN, "Temurin", "temurin", "21.0.1", "21", "linux", "x64", false, "/opt/temurin-21/", "",
+                                    BuildScope.BUILD_OF_OPEN_JDK, false, List.of(), DetectionMethod.RELEASE_FILE);
+    }
+
+    private static byte[] write(final BinaryInventory inventory) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        inventory.write(outputStream);
+        return outputStream.toByteArray();
+    }
+}
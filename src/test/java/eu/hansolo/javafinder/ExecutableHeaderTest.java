@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.Bitness;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class ExecutableHeaderTest {
+    @TempDir
+    private Path dir;
+
+
+    // ******************** Tests *********************************************
+    @Test public void elf64WithMuslLoader() throws IOException {
+        final ExecutableHeader header = ExecutableHeader.read(write("java", elf64((short) 0x3E, "/lib/ld-musl-x86_64.so.1")));
+        assertEquals(ExecutableFormat.ELF, header.format());
+        assertEquals(Architecture.AMD64, header.architecture());
+        assertEquals(Bitness.BIT_64, header.bitness());
+        assertEquals("/lib/ld-musl-x86_64.so.1", header.interpreter());
+        assertTrue(header.isMusl());
+        assertEquals("linux-musl", header.getOperatingSystemApiString());
+    }
+
+    @Test public void elf64Aarch64() throws IOException {
+        final ExecutableHeader header = ExecutableHeader.read(write("java", elf64((short) 0xB7, "/lib/ld-linux-aarch64.so.1")));
+        assertEquals(Architecture.AARCH64, header.architecture());
+        assertFalse(header.isMusl());
+        assertEquals("linux", header.getOperatingSystemApiString());
+    }
+
+    // An ELF binary can't be started without its dynamic loader
+    @Test public void elfWithMissingLoader() throws IOException {
+        final ExecutableHeader header = ExecutableHeader.read(write("java", elf64((short) 0x3E, "/nonexistent/ld-linux-x86-64.so.2")));
+        assertFalse(header.canRunOn(OperatingSystem.LINUX, Architecture.AMD64));
+        assertFalse(header.canRunOn(OperatingSystem.WINDOWS, Architecture.AMD64));
+    }
+
+    @Test public void pe64() throws IOException {
+        final ByteBuffer pe = ByteBuffer.allocate(0x40 + 26).order(ByteOrder.LITTLE_ENDIAN);
+        pe.put(0, (byte) 'M').put(1, (byte) 'Z').putInt(0x3C, 0x40).putInt(0x40, 0x00004550).putShort(0x44, (short) 0x8664).putShort(0x40 + 24, (short) 0x20B);
+        final ExecutableHeader header = ExecutableHeader.read(write("java.exe", pe.array()));
+        assertEquals(ExecutableFormat.PE, header.format());
+        assertEquals(Architecture.AMD64, header.architecture());
+        assertEquals(Bitness.BIT_64, header.bitness());
+        assertEquals("windows", header.getOperatingSystemApiString());
+    }
+
+    @Test public void machO64() throws IOException {
+        final ByteBuffer macho = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN).putInt(0xFEEDFACF).putInt(0x0100000C);
+        final ExecutableHeader header = ExecutableHeader.read(write("java", macho.array()));
+        assertEquals(ExecutableFormat.MACH_O, header.format());
+        assertEquals(Architecture.AARCH64, header.architecture());
+        assertEquals(Bitness.BIT_64, header.bitness());
+        assertTrue(header.canRunOn(OperatingSystem.MACOS, Architecture.AARCH64));
+        assertFalse(header.canRunOn(OperatingSystem.LINUX, Architecture.AARCH64));
+    }
+
+    @Test public void script() throws IOException {
+        final ExecutableHeader header = ExecutableHeader.read(write("java", "#!/bin/sh\nexec java \"$@\"\n".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(ExecutableFormat.SCRIPT, header.format());
+        assertEquals("/bin/sh", header.interpreter());
+    }
+
+    // Class files share the magic number of universal Mach-O binaries
+    @Test public void classFile() throws IOException {
+        final ByteBuffer classFile = ByteBuffer.allocate(64).putInt(0xCAFEBABE).putShort((short) 0).putShort((short) 65);
+        assertSame(ExecutableHeader.NOT_FOUND, ExecutableHeader.read(write("Main.class", classFile.array())));
+    }
+
+    @Test public void invalidFiles() throws IOException {
+        assertSame(ExecutableHeader.NOT_FOUND, ExecutableHeader.read(write("empty", new byte[0])));
+        assertSame(ExecutableHeader.NOT_FOUND, ExecutableHeader.read(write("text", "hello world".getBytes(StandardCharsets.US_ASCII))));
+        assertSame(ExecutableHeader.NOT_FOUND, ExecutableHeader.read(write("elf", new byte[] { 0x7F, 'E', 'L', 'F', 2, 1 })));
+        assertSame(ExecutableHeader.NOT_FOUND, ExecutableHeader.read(dir.resolve("missing")));
+    }
+
+
+    // ******************** Methods *******************************************
+    // Little endian 64 bit ELF header with a single PT_INTERP program header
+    private static byte[] elf64(final short machine, final String interpreter) {
+        final int        interpreterOffset = 0x40 + 0x38;
+        final byte[]     interpreterBytes  = (interpreter + '\0').getBytes(StandardCharsets.US_ASCII);
+        final ByteBuffer elf               = ByteBuffer.allocate(interpreterOffset + interpreterBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        elf.put(new byte[] { 0x7F, 'E', 'L', 'F', 2, 1, 1 });
+        elf.putShort(0x12, machine).putLong(0x20, 0x40).putShort(0x36, (short) 0x38).putShort(0x38, (short) 1);
+        elf.putInt(0x40, 3).putLong(0x40 + 0x08, interpreterOffset).putLong(0x40 + 0x20, interpreterBytes.length);
+        elf.put(interpreterOffset, interpreterBytes);
+        return elf.array();
+    }
+
+    private Path write(final String name, final byte[] bytes) throws IOException { return Files.write(dir.resolve(name), bytes); }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2023 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.javafinder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class ReleaseFileTest {
+    private static final String TEMURIN_21 = """
+                                             IMPLEMENTOR="Eclipse Adoptium"
+                                             IMPLEMENTOR_VERSION="Temurin-21.0.1+12"
+                                             JAVA_RUNTIME_VERSION="21.0.1+12-LTS"
+                                             JAVA_VERSION="21.0.1"
+                                             JAVA_VERSION_DATE="2023-10-17"
+                                             LIBC="gnu"
+                                             MODULES="java.base java.compiler java.datatransfer"
+                                             OS_ARCH="x86_64"
+                                             OS_NAME="Linux"
+                                             SOURCE=".:git:5a0ba5ef3d48"
+                                             BUILD_SOURCE="git:f0b9b9e3e6cd"
+                                             """;
+    private static final String ZULU_8     = "JAVA_VERSION=\"1.8.0_392\"\r\nOS_NAME=\"Linux\"\r\nOS_ARCH=\"amd64\"\r\nIMPLEMENTOR=\"Azul Systems, Inc.\"\r\n";
+
+
+    // ******************** Tests *********************************************
+    @Test public void parseTemurin() {
+        final ReleaseFile release = ReleaseFile.parse(TEMURIN_21.getBytes(StandardCharsets.UTF_8));
+        assertEquals("Eclipse Adoptium", release.implementor());
+        assertEquals("Temurin-21.0.1+12", release.implementorVersion());
+        assertEquals("21.0.1", release.javaVersion());
+        assertEquals("21.0.1+12-LTS", release.javaRuntimeVersion());
+        assertEquals("x86_64", release.osArch());
+        assertEquals("Linux", release.osName());
+        assertEquals("java.base java.compiler java.datatransfer", release.modules());
+        assertEquals("", release.jvmVariant());
+        assertEquals("", release.graalvmVersion());
+    }
+
+    @Test public void parseCrLf() {
+        final ReleaseFile release = ReleaseFile.parse(ZULU_8.getBytes(StandardCharsets.UTF_8));
+        assertEquals("Azul Systems, Inc.", release.implementor());
+        assertEquals("1.8.0_392", release.javaVersion());
+        assertEquals("amd64", release.osArch());
+    }
+
+    // Properties syntax: comments, whitespace around the separator, ':' as separator and unquoted values
+    @Test public void parseLenient() {
+        final String text = "# JAVA_VERSION=\"1.0\"\n" +
+                            "! OS_NAME=Comment\n" +
+                            "  JAVA_VERSION = \"17.0.9\"  \n" +
+                            "OS_NAME:Darwin\n" +
+                            "JVM_VARIANT=\tOpenJ9\n" +
+                            "IMPLEMENTOR=\"\n" +
+                            "JAVA_VERSION_DATE=\"2023-10-17\"\n" +
+                            "BUILD_TYPE";
+        final ReleaseFile release = ReleaseFile.parse(text.getBytes(StandardCharsets.UTF_8));
+        assertEquals("17.0.9", release.javaVersion());
+        assertEquals("Darwin", release.osName());
+        assertEquals("OpenJ9", release.jvmVariant());
+        assertEquals("\"", release.implementor());
+        assertEquals("", release.buildType());
+    }
+
+    @Test public void parseEmpty() {
+        assertTrue(ReleaseFile.parse(new byte[0]).isEmpty());
+        assertTrue(ReleaseFile.parse("\n\n# nothing\n".getBytes(StandardCharsets.UTF_8)).isEmpty());
+    }
+
+    @Test public void readMissingFile(@TempDir final Path dir) {
+        assertTrue(ReleaseFile.read(dir.resolve(ReleaseFile.FILE_NAME)).isEmpty());
+    }
+
+    @Test public void readFile(@TempDir final Path dir) throws IOException {
+        final Path releaseFile = Files.writeString(dir.resolve(ReleaseFile.FILE_NAME), TEMURIN_21, StandardCharsets.UTF_8);
+        assertEquals(ReleaseFile.parse(TEMURIN_21.getBytes(StandardCharsets.UTF_8)), ReleaseFile.read(releaseFile));
+    }
+}